@@ -0,0 +1,117 @@
+package com.ecommerce.payment;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Stand-in for the payment gateway when load-testing /payment/webhook against a running
+// backend. Sends signed payment.captured events the way the gateway does, including
+// redeliveries of events already sent (--duplicate-rate), and reports acknowledgement
+// latency. Pass real gateway order ids with --order-ids to exercise the order updates;
+// generated ids are stored and then ignored by the processor. The webhook is exempt from
+// rate limiting, so all requests coming from one address is fine.
+//
+//   java -cp benchmarks/target/benchmarks.jar com.ecommerce.payment.StubPaymentGateway \
+//        --url http://localhost:8080/api/payment/webhook --secret YourWebhookSecret \
+//        --events 20000 --concurrency 32 --duplicate-rate 0.1
+public final class StubPaymentGateway {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:8080/api/payment/webhook"));
+        String secret = options.getOrDefault("secret", "YourWebhookSecret");
+        int events = Integer.parseInt(options.getOrDefault("events", "10000"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        double duplicateRate = Double.parseDouble(options.getOrDefault("duplicate-rate", "0.1"));
+        List<String> orderIds = options.containsKey("order-ids")
+                ? List.of(options.get("order-ids").split(","))
+                : List.of();
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+
+        // Build every delivery up front so the load loop only sends
+        Random random = new Random(42);
+        List<Delivery> deliveries = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            if (!deliveries.isEmpty() && random.nextDouble() < duplicateRate) {
+                deliveries.add(deliveries.get(random.nextInt(deliveries.size())));
+                continue;
+            }
+            String orderId = orderIds.isEmpty()
+                    ? "order_stub" + String.format("%08d", i)
+                    : orderIds.get(i % orderIds.size());
+            String paymentId = "pay_stub" + String.format("%08d", i);
+            String body = "{\"entity\":\"event\",\"event\":\"payment.captured\",\"payload\":{\"payment\":{\"entity\":"
+                    + "{\"id\":\"" + paymentId + "\",\"order_id\":\"" + orderId + "\",\"status\":\"captured\"}}},"
+                    + "\"created_at\":" + System.currentTimeMillis() / 1000 + "}";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            deliveries.add(new Delivery("evt_stub" + i, bytes, HexFormat.of().formatHex(mac.doFinal(bytes))));
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(concurrency))
+                .build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        long[] latenciesMicros = new long[deliveries.size()];
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(deliveries.size());
+
+        long started = System.nanoTime();
+        for (int i = 0; i < deliveries.size(); i++) {
+            Delivery delivery = deliveries.get(i);
+            int index = i;
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(url)
+                    .header("Content-Type", "application/json")
+                    .header("X-Razorpay-Signature", delivery.signature())
+                    .header("X-Razorpay-Event-Id", delivery.eventId())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(delivery.body()))
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latenciesMicros[index] = (System.nanoTime() - sent) / 1_000;
+                if (error != null || response.statusCode() != 200) {
+                    failures.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+
+        Arrays.sort(latenciesMicros);
+        System.out.printf("%d deliveries (%d unique) in %d ms: %.0f/s, %d failed%n",
+                deliveries.size(), deliveries.stream().distinct().count(), elapsedMs,
+                deliveries.size() * 1000.0 / elapsedMs, failures.get());
+        System.out.printf("ack latency p50 %d us, p99 %d us, max %d us%n",
+                percentile(latenciesMicros, 0.50), percentile(latenciesMicros, 0.99),
+                latenciesMicros[latenciesMicros.length - 1]);
+        System.exit(0);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    private record Delivery(String eventId, byte[] body, String signature) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecommerce.security;
+
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    // 0 disables the verified-token cache, so every request pays the full HMAC check
+    @Param({"0", "4096"})
+    private int verifiedCacheSize;
+
+    // Stateless mode builds the principal from the claims instead of calling the user lookup
+    @Param({"false", "true"})
+    private boolean statelessAuth;
+
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private final FilterChain chain = (request, response) -> { };
+
+    @Setup
+    public void setup() {
+        JwtTokenProvider tokenProvider = SecurityFixtures.tokenProvider(verifiedCacheSize);
+
+        UserDetailsImpl principal = SecurityFixtures.principal();
+        token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        // Stub out the user lookup so only token handling is measured. The registry is
+        // never refreshed, so it holds no revocations, same as a quiet production instance.
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "userDetailsService",
+                (UserDetailsService) username -> principal);
+        ReflectionTestUtils.setField(filter, "revocationRegistry", new TokenRevocationRegistry(null));
+        ReflectionTestUtils.setField(filter, "statelessAuth", statelessAuth);
+    }
+
+    @Benchmark
+    public Object filterAuthenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cart");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilterInternal(request, new MockHttpServletResponse(), chain);
+        return takeAuthentication();
+    }
+
+    @Benchmark
+    public Object filterAnonymousRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        filter.doFilterInternal(request, new MockHttpServletResponse(), chain);
+        return takeAuthentication();
+    }
+
+    private Object takeAuthentication() {
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
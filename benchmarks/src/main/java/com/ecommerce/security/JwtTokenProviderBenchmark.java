@@ -0,0 +1,76 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider uncachedProvider;
+    private JwtTokenProvider cachedProvider;
+    private Authentication authentication;
+    private User user;
+    private String accessToken;
+    private String tamperedToken;
+
+    @Setup
+    public void setup() {
+        uncachedProvider = SecurityFixtures.tokenProvider(0);
+        cachedProvider = SecurityFixtures.tokenProvider(4096);
+
+        UserDetailsImpl principal = SecurityFixtures.principal();
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        user = SecurityFixtures.user();
+
+        accessToken = uncachedProvider.generateToken(authentication);
+        // Flip a character in the signature so verification has to fail
+        char last = accessToken.charAt(accessToken.length() - 2);
+        tamperedToken = accessToken.substring(0, accessToken.length() - 2)
+                + (last == 'A' ? 'B' : 'A') + accessToken.charAt(accessToken.length() - 1);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return uncachedProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateRefreshToken() {
+        return uncachedProvider.generateRefreshToken(user, UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    public boolean validateUncached() {
+        return uncachedProvider.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public boolean validateCached() {
+        return cachedProvider.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public boolean validateTampered() {
+        return uncachedProvider.validateToken(tamperedToken);
+    }
+
+    @Benchmark
+    public Object parseClaimsUncached() {
+        return uncachedProvider.resolveClaims(accessToken).orElseThrow();
+    }
+
+    @Benchmark
+    public Object parseClaimsCached() {
+        return cachedProvider.resolveClaims(accessToken).orElseThrow();
+    }
+}
@@ -0,0 +1,57 @@
+package com.ecommerce.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+// Throughput vs. latency of BCrypt at different cost factors, called directly and
+// through the bounded hashing pool. Run with -t to simulate concurrent logins.
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"8", "10", "12"})
+    private int strength;
+
+    private PasswordEncoder direct;
+    private PasswordEncoder bounded;
+    private PasswordHashingExecutor hashingExecutor;
+    private String encodedPassword;
+
+    @Setup
+    public void setup() {
+        direct = new BCryptPasswordEncoder(strength);
+        hashingExecutor = new PasswordHashingExecutor(0, 64, 60_000, new SimpleMeterRegistry());
+        bounded = new BoundedPasswordEncoder(direct, hashingExecutor);
+        encodedPassword = direct.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Benchmark
+    public boolean matchesDirect() {
+        return direct.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public boolean matchesBounded() {
+        return bounded.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public String encodeDirect() {
+        return direct.encode(PASSWORD);
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.security;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+// Payment callback verifications per second on one core (single benchmark thread).
+// naiveVerify is the straightforward version for comparison: a new Mac and key setup per
+// call, hex-encoding the result and comparing strings.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Benchmark)
+public class PaymentSignatureVerifierBenchmark {
+
+    private static final String KEY_SECRET = "benchmark-razorpay-key-secret";
+
+    private PaymentSignatureVerifier verifier;
+    private String orderId;
+    private String paymentId;
+    private String signature;
+    private String tamperedSignature;
+
+    @Setup
+    public void setup() throws Exception {
+        verifier = new PaymentSignatureVerifier(KEY_SECRET);
+        orderId = "order_9A33XWu170gUtm";
+        paymentId = "pay_29QQoUBi66xm2f";
+        signature = naiveSign(orderId, paymentId);
+
+        // Differs only in the last byte, the worst case for an early-exit comparison
+        char last = signature.charAt(signature.length() - 1);
+        tamperedSignature = signature.substring(0, signature.length() - 1) + (last == '0' ? '1' : '0');
+    }
+
+    @Benchmark
+    public boolean verifyValid() {
+        return verifier.verify(orderId, paymentId, signature);
+    }
+
+    @Benchmark
+    public boolean verifyTampered() {
+        return verifier.verify(orderId, paymentId, tamperedSignature);
+    }
+
+    @Benchmark
+    public boolean naiveVerify() throws Exception {
+        return naiveSign(orderId, paymentId).equals(signature);
+    }
+
+    private static String naiveSign(String orderId, String paymentId) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(KEY_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] digest = mac.doFinal((orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+}
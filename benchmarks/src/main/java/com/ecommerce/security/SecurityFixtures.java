@@ -0,0 +1,47 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.User;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+// Builds the security components the way Spring would, minus the application context
+final class SecurityFixtures {
+
+    static final String JWT_SECRET = "BenchmarkJwtSecretKeyThatIsAtLeast64CharactersLongForHS512Signing";
+
+    private SecurityFixtures() {
+    }
+
+    static JwtTokenProvider tokenProvider(int verifiedCacheSize) {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpirationInMs", 7_200_000L);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedCacheSize", verifiedCacheSize);
+        tokenProvider.init();
+        return tokenProvider;
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId(42L);
+        user.setName("Bench User");
+        user.setEmail("bench@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3Yz8K7rKHyyG6R0oG2e8Y6e");
+        user.setRole(User.Role.BUYER);
+        return user;
+    }
+
+    static UserDetailsImpl principal() {
+        return UserDetailsImpl.builder()
+                .id(42L)
+                .name("Bench User")
+                .email("bench@example.com")
+                .password("n/a")
+                .role("BUYER")
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_BUYER")))
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.security;
+
+import com.ecommerce.entity.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserDetailsImplBenchmark {
+
+    private User user;
+    private Claims claims;
+
+    @Setup
+    public void setup() {
+        user = SecurityFixtures.user();
+
+        JwtTokenProvider tokenProvider = SecurityFixtures.tokenProvider(0);
+        UserDetailsImpl principal = SecurityFixtures.principal();
+        String token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        claims = tokenProvider.resolveClaims(token).orElseThrow();
+    }
+
+    @Benchmark
+    public UserDetailsImpl buildFromUser() {
+        return UserDetailsImpl.build(user);
+    }
+
+    @Benchmark
+    public UserDetailsImpl buildFromClaims() {
+        return UserDetailsImpl.fromClaims(claims);
+    }
+}
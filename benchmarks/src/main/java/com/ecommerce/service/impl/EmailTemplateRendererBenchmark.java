@@ -0,0 +1,79 @@
+package com.ecommerce.service.impl;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Messages rendered per second for a large batch of order confirmations: the old path
+// (new Context and a fresh String per message) against EmailTemplateRenderer, with the
+// template cache off (parsed every time) and on.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailTemplateRendererBenchmark {
+
+    private static final int BATCH = 1_000;
+    private static final String TEMPLATE = "order-confirmation-email";
+
+    @Param({"false", "true"})
+    private boolean templateCache;
+
+    private SpringTemplateEngine templateEngine;
+    private EmailTemplateRenderer renderer;
+    private Map<String, Object>[] models;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        // Same location and mode the application uses (spring.thymeleaf.prefix/suffix)
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/email/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        resolver.setCacheable(templateCache);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        renderer = new EmailTemplateRenderer(templateEngine, 8192);
+
+        models = new Map[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            Map<String, Object> model = new HashMap<>();
+            model.put("name", "Customer " + i);
+            model.put("orderNumber", String.format("%010d", i));
+            model.put("totalAmount", BigDecimal.valueOf(1999 + i, 2));
+            models[i] = model;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void renderWithNewContext(Blackhole blackhole) {
+        for (Map<String, Object> model : models) {
+            Context context = new Context(Locale.getDefault());
+            context.setVariables(model);
+            blackhole.consume(templateEngine.process(TEMPLATE, context));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void renderWithRenderer(Blackhole blackhole) {
+        for (Map<String, Object> model : models) {
+            blackhole.consume(renderer.render(TEMPLATE, model));
+        }
+    }
+}
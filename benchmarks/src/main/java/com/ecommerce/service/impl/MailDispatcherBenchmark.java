@@ -0,0 +1,86 @@
+package com.ecommerce.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.concurrent.TimeUnit;
+
+// Compares sending a burst of emails the old way (one JavaMailSender.send per message,
+// so one SMTP connection each) with the pooled dispatcher, against LocalSmtpServer.
+// Scores are per message.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MailDispatcherBenchmark {
+
+    private static final int BURST = 100;
+
+    // Added before every SMTP reply; 0 is loopback, a few ms is closer to a real relay
+    @Param({"0", "2"})
+    private long replyDelayMs;
+
+    @Param({"1", "4"})
+    private int workers;
+
+    private LocalSmtpServer server;
+    private JavaMailSenderImpl mailSender;
+    private MailDispatcher dispatcher;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new LocalSmtpServer(replyDelayMs);
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(server.getPort());
+
+        dispatcher = new MailDispatcher(mailSender, new SimpleMeterRegistry(), true, workers,
+                10_000, 50, 1, 100, 2_000, 30_000, 1_000);
+        dispatcher.start();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        dispatcher.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long sendDirect() throws Exception {
+        long target = server.getReceived() + BURST;
+        for (int i = 0; i < BURST; i++) {
+            mailSender.send(message(i));
+        }
+        server.awaitReceived(target, 60_000);
+        return target;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long sendPooled() throws Exception {
+        long target = server.getReceived() + BURST;
+        for (int i = 0; i < BURST; i++) {
+            dispatcher.enqueue(message(i));
+        }
+        server.awaitReceived(target, 60_000);
+        return target;
+    }
+
+    private MimeMessage message(int i) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom("no-reply@ecommerce.com");
+        helper.setTo("customer" + i + "@example.com");
+        helper.setSubject("Your order has shipped");
+        helper.setText("Dear Customer,\n\nYour order is on its way.\n\nThank you,\nThe eCommerce Team");
+        return message;
+    }
+}
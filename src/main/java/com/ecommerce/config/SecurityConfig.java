@@ -1,8 +1,12 @@
 
 package com.ecommerce.config;
 
+import com.ecommerce.security.BoundedPasswordEncoder;
 import com.ecommerce.security.JwtAuthenticationFilter;
+import com.ecommerce.security.PasswordHashingExecutor;
+import com.ecommerce.security.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -31,6 +35,12 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+    
+    @Value("${app.security.bcrypt.strength:10}")
+    private int bcryptStrength;
+    
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -42,11 +52,16 @@ public class SecurityConfig {
                                  "/auth/refresh-token", "/v3/api-docs/**", 
                                  "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/products/**", "/products").permitAll()
+                .requestMatchers("/payment/webhook").permitAll()
+                // Metrics are read over JMX, never by API clients
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").denyAll()
                 .requestMatchers("/seller/**").hasRole("SELLER")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
@@ -66,8 +81,8 @@ public class SecurityConfig {
     }
     
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor passwordHashingExecutor) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(bcryptStrength), passwordHashingExecutor);
     }
     
     @Bean
@@ -2,8 +2,10 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.ApiResponse;
+import com.ecommerce.dto.CartBulkRequest;
 import com.ecommerce.dto.CartItemDto;
 import com.ecommerce.dto.CartItemRequest;
+import com.ecommerce.dto.CartSummaryDto;
 import com.ecommerce.service.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +34,19 @@ public class CartController {
         );
     }
     
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<CartSummaryDto>> getCartSummary() {
+        CartSummaryDto summary = cartService.getCartSummary();
+        
+        return ResponseEntity.ok(
+                ApiResponse.<CartSummaryDto>builder()
+                        .success(true)
+                        .message("Cart summary fetched successfully")
+                        .data(summary)
+                        .build()
+        );
+    }
+    
     @PostMapping("/add")
     public ResponseEntity<ApiResponse<CartItemDto>> addToCart(@Valid @RequestBody CartItemRequest cartItemRequest) {
         CartItemDto cartItem = cartService.addToCart(cartItemRequest);
@@ -58,6 +73,19 @@ public class CartController {
         );
     }
     
+    @PostMapping("/bulk")
+    public ResponseEntity<ApiResponse<List<CartItemDto>>> applyBulk(@Valid @RequestBody CartBulkRequest bulkRequest) {
+        List<CartItemDto> cartItems = cartService.applyBulk(bulkRequest);
+        
+        return ResponseEntity.ok(
+                ApiResponse.<List<CartItemDto>>builder()
+                        .success(true)
+                        .message(bulkRequest.isMerge() ? "Cart merged successfully" : "Cart updated successfully")
+                        .data(cartItems)
+                        .build()
+        );
+    }
+    
     @DeleteMapping("/remove/{productId}")
     public ResponseEntity<ApiResponse<Void>> removeFromCart(@PathVariable Long productId) {
         cartService.removeFromCart(productId);
@@ -6,6 +6,7 @@ import com.ecommerce.dto.OrderDto;
 import com.ecommerce.dto.PaymentRequest;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.PaymentService;
+import com.ecommerce.service.PaymentWebhookService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,7 @@ public class PaymentController {
     
     private final PaymentService paymentService;
     private final OrderService orderService;
+    private final PaymentWebhookService webhookService;
     
     @PostMapping("/checkout")
     public ResponseEntity<ApiResponse<Map<String, Object>>> checkout(@Valid @RequestBody PaymentRequest paymentRequest) {
@@ -62,4 +64,22 @@ public class PaymentController {
             );
         }
     }
+    
+    // Called by the gateway, not the browser: authenticated by the body signature. The event
+    // is only stored here and acknowledged; redeliveries of a stored event are acknowledged too.
+    @PostMapping("/webhook")
+    public ResponseEntity<ApiResponse<Void>> receiveWebhook(
+            @RequestBody byte[] body,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        
+        boolean stored = webhookService.receiveEvent(body, signature, eventId);
+        
+        return ResponseEntity.ok(
+                ApiResponse.<Void>builder()
+                        .success(true)
+                        .message(stored ? "Event accepted" : "Duplicate event ignored")
+                        .build()
+        );
+    }
 }
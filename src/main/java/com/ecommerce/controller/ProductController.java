@@ -29,6 +29,18 @@ public class ProductController {
             @RequestParam(defaultValue = "id") String sortBy,
             @RequestParam(defaultValue = "asc") String direction) {
         
+        if ("trending".equalsIgnoreCase(sortBy)) {
+            Page<ProductDto> products = productService.getTrendingProducts(PageRequest.of(page, size));
+            
+            return ResponseEntity.ok(
+                    ApiResponse.<Page<ProductDto>>builder()
+                            .success(true)
+                            .message("Products fetched successfully")
+                            .data(products)
+                            .build()
+            );
+        }
+        
         Sort sort = direction.equalsIgnoreCase("desc") ? 
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
@@ -108,6 +120,20 @@ public class ProductController {
         );
     }
     
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<List<ProductDto>>> getTrendingProducts(
+            @RequestParam(defaultValue = "8") int limit) {
+        List<ProductDto> products = productService.getTrendingProducts(Math.min(Math.max(limit, 1), 100));
+        
+        return ResponseEntity.ok(
+                ApiResponse.<List<ProductDto>>builder()
+                        .success(true)
+                        .message("Trending products fetched successfully")
+                        .data(products)
+                        .build()
+        );
+    }
+    
     @GetMapping("/upcoming")
     public ResponseEntity<ApiResponse<List<ProductDto>>> getUpcomingProducts() {
         List<ProductDto> products = productService.getUpcomingProducts();
@@ -2,7 +2,9 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.ApiResponse;
+import com.ecommerce.dto.ReviewCheckRequest;
 import com.ecommerce.dto.ReviewDto;
+import com.ecommerce.dto.ReviewPageDto;
 import com.ecommerce.dto.ReviewRequest;
 import com.ecommerce.service.ReviewService;
 import jakarta.validation.Valid;
@@ -14,6 +16,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Set;
+
 @RestController
 @RequestMapping("/review")
 @RequiredArgsConstructor
@@ -57,6 +61,25 @@ public class ReviewController {
         );
     }
     
+    // Newest first, paged by an opaque cursor instead of an offset, so deep pages cost
+    // the same as the first one
+    @GetMapping("/product/{productId}/page")
+    public ResponseEntity<ApiResponse<ReviewPageDto>> getProductReviewPage(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        ReviewPageDto reviews = reviewService.getProductReviewPage(productId, cursor, Math.max(1, Math.min(size, 50)));
+        
+        return ResponseEntity.ok(
+                ApiResponse.<ReviewPageDto>builder()
+                        .success(true)
+                        .message("Product reviews fetched successfully")
+                        .data(reviews)
+                        .build()
+        );
+    }
+    
     @GetMapping("/user/product/{productId}")
     public ResponseEntity<ApiResponse<ReviewDto>> getUserReviewForProduct(@PathVariable Long productId) {
         ReviewDto review = reviewService.getUserReviewForProduct(productId);
@@ -81,4 +104,17 @@ public class ReviewController {
                         .build()
         );
     }
+    
+    // Batch variant for order history: returns which of the given products the user has reviewed
+    @PostMapping("/check")
+    public ResponseEntity<ApiResponse<Set<Long>>> findReviewedProducts(@Valid @RequestBody ReviewCheckRequest checkRequest) {
+        Set<Long> reviewed = reviewService.findReviewedProducts(checkRequest.getProductIds());
+        
+        return ResponseEntity.ok(
+                ApiResponse.<Set<Long>>builder()
+                        .success(true)
+                        .data(reviewed)
+                        .build()
+        );
+    }
 }
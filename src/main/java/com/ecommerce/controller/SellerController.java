@@ -4,7 +4,10 @@ package com.ecommerce.controller;
 import com.ecommerce.dto.ApiResponse;
 import com.ecommerce.dto.ProductCreateRequest;
 import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.ReviewImportResultDto;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.ReviewImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -15,6 +18,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/seller")
 @RequiredArgsConstructor
@@ -22,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 public class SellerController {
     
     private final ProductService productService;
+    private final ReviewImportService reviewImportService;
     
     @GetMapping("/products")
     public ResponseEntity<ApiResponse<Page<ProductDto>>> getSellerProducts(
@@ -86,6 +92,20 @@ public class SellerController {
         );
     }
     
+    // One review per line as JSON; the body is read as a stream, never held in memory whole
+    @PostMapping(value = "/reviews/import", consumes = {"application/x-ndjson", "text/plain"})
+    public ResponseEntity<ApiResponse<ReviewImportResultDto>> importReviews(HttpServletRequest request) throws IOException {
+        ReviewImportResultDto result = reviewImportService.importReviews(request.getInputStream());
+        
+        return ResponseEntity.ok(
+                ApiResponse.<ReviewImportResultDto>builder()
+                        .success(true)
+                        .message("Review import finished")
+                        .data(result)
+                        .build()
+        );
+    }
+    
     @GetMapping("/dashboard")
     public ResponseEntity<ApiResponse<String>> getDashboard() {
         return ResponseEntity.ok(
@@ -2,13 +2,16 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.ApiResponse;
+import com.ecommerce.dto.WishlistCheckRequest;
 import com.ecommerce.dto.WishlistItemDto;
 import com.ecommerce.service.WishlistService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/wishlist")
@@ -66,4 +69,17 @@ public class WishlistController {
                         .build()
         );
     }
+    
+    // Batch variant for product grids: returns which of the given products are in the wishlist
+    @PostMapping("/check")
+    public ResponseEntity<ApiResponse<Set<Long>>> findProductsInWishlist(@Valid @RequestBody WishlistCheckRequest checkRequest) {
+        Set<Long> inWishlist = wishlistService.findProductsInWishlist(checkRequest.getProductIds());
+        
+        return ResponseEntity.ok(
+                ApiResponse.<Set<Long>>builder()
+                        .success(true)
+                        .data(inWishlist)
+                        .build()
+        );
+    }
 }
@@ -0,0 +1,29 @@
+package com.ecommerce.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBulkOperation {
+    
+    @NotNull(message = "Operation type is required")
+    private Type type;
+    
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+    
+    // Required for ADD and UPDATE, ignored for REMOVE
+    @Positive(message = "Quantity must be positive")
+    private Integer quantity;
+    
+    private String selectedSize;
+    
+    public enum Type {
+        ADD, UPDATE, REMOVE
+    }
+}
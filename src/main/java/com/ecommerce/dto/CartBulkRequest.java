@@ -0,0 +1,25 @@
+package com.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBulkRequest {
+    
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 200, message = "At most 200 operations per request")
+    private List<@Valid CartBulkOperation> operations;
+    
+    // Merges a guest cart into the stored one: every operation must be an ADD, and a
+    // line already in the cart keeps the larger of the two quantities, so syncing the
+    // same guest cart twice doesn't double it
+    private boolean merge;
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryDto {
+    private int itemCount;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private BigDecimal total;
+    
+    // Bumped whenever any cached price changes; a client can skip re-rendering totals
+    // if both this and its cart are unchanged
+    private long priceVersion;
+}
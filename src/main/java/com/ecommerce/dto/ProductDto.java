@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -24,5 +25,8 @@ public class ProductDto {
     private boolean upcoming;
     private LocalDateTime createdAt;
     private Double averageRating;
+    private int reviewCount;
+    // Review counts for 1 to 5 stars, in that order
+    private List<Integer> ratingDistribution;
     private UserDto seller;
 }
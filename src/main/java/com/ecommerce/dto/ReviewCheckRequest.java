@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewCheckRequest {
+    
+    @NotEmpty(message = "Product IDs are required")
+    @Size(max = 200, message = "At most 200 product IDs per request")
+    private List<@NotNull Long> productIds;
+}
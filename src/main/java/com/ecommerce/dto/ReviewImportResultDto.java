@@ -0,0 +1,32 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewImportResultDto {
+    private int totalRows;
+    private int imported;
+    
+    // Rows for a (user, product) pair that already has a review
+    private int duplicates;
+    
+    private int failed;
+    
+    // Capped, so a file full of bad rows can't blow up the response; failed has the full count
+    private List<RowError> errors = new ArrayList<>();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int line;
+        private String message;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One line of an NDJSON review import
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewImportRow {
+    private Long productId;
+    private String userEmail;
+    private Integer rating;
+    private String comment;
+    
+    // Original review date; defaults to the time of the import
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.entity.User;
+import lombok.Value;
+
+// Immutable copy of a user's scalar columns, safe to share between requests. Code that
+// needs the user as a foreign key should take UserService.getReferenceById instead.
+@Value
+public class UserSummary {
+    Long id;
+    String name;
+    String email;
+    User.Role role;
+    String address;
+    String city;
+    String state;
+    String zipCode;
+    String country;
+    String phone;
+    int tokenVersion;
+    
+    public static UserSummary of(User user) {
+        return new UserSummary(user.getId(), user.getName(), user.getEmail(), user.getRole(),
+                user.getAddress(), user.getCity(), user.getState(), user.getZipCode(),
+                user.getCountry(), user.getPhone(), user.getTokenVersion());
+    }
+}
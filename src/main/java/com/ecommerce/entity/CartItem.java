@@ -11,7 +11,14 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+        // One line per product; also what the upsert in CartItemRepository relies on
+        @UniqueConstraint(name = "uk_cart_items_user_product", columnNames = {"user_id", "product_id"})
+}, indexes = {
+        // Covers every column the abandoned cart scan aggregates, so it groups per user
+        // from the index alone without touching the rows
+        @Index(name = "idx_cart_items_user_activity", columnList = "user_id, updated_at, reminder_sent_at, quantity")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -39,4 +46,7 @@ public class CartItem {
     
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+    
+    // Set on every line of the cart once an abandoned cart reminder has been delivered
+    private LocalDateTime reminderSentAt;
 }
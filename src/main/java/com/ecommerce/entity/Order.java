@@ -46,6 +46,9 @@ public class Order {
     private String phone;
     
     // Payment information
+    // Gateway order created at checkout; payment callbacks refer to the order by it
+    @Column(unique = true)
+    private String paymentOrderId;
     private String paymentId;
     private String paymentMethod = "RAZORPAY";
     private boolean paymentCompleted = false;
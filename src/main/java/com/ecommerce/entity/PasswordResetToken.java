@@ -1,4 +1,3 @@
-
 package com.ecommerce.entity;
 
 import jakarta.persistence.*;
@@ -9,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "password_reset_tokens")
+@Table(name = "password_reset_tokens", indexes = {
+        // Covers the validate/lookup queries without touching the table rows
+        @Index(name = "idx_reset_tokens_lookup", columnList = "token, expiryDate, user_id"),
+        @Index(name = "idx_reset_tokens_expiry", columnList = "expiryDate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,8 +22,10 @@ public class PasswordResetToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false, unique = true)
-    private String token;
+    // SHA-256 of the token that was emailed; the raw token is never stored.
+    // Keeps the original column name so existing schemas keep working.
+    @Column(name = "token", nullable = false, unique = true, length = 64)
+    private String tokenHash;
     
     @OneToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "user_id", nullable = false)
@@ -0,0 +1,64 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+// Inbox of gateway webhook deliveries. Rows are only ever inserted by the webhook endpoint;
+// the processor just records the outcome on them.
+@Entity
+@Table(name = "payment_webhook_events", uniqueConstraints = {
+        // Gateways redeliver until acknowledged; a second copy of an event is dropped on insert
+        @UniqueConstraint(name = "uk_payment_webhook_events_event", columnNames = "event_id")
+}, indexes = {
+        // The processor reads pending events oldest first
+        @Index(name = "idx_payment_webhook_events_status", columnList = "status, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentWebhookEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 64)
+    private String eventId;
+    
+    @Column(nullable = false, length = 64)
+    private String eventType;
+    
+    // Gateway order and payment ids taken from the payload, so routing needs no re-parse
+    @Column(length = 64)
+    private String paymentOrderId;
+    
+    @Column(length = 64)
+    private String paymentId;
+    
+    @Lob
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+    
+    private int attempts;
+    
+    // A failed event is not picked up again before this; null until its first failure
+    private LocalDateTime nextAttemptAt;
+    
+    @CreationTimestamp
+    private LocalDateTime receivedAt;
+    
+    private LocalDateTime processedAt;
+    
+    public enum Status {
+        PENDING, PROCESSED, IGNORED, FAILED
+    }
+}
@@ -6,15 +6,21 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+// Updates only write the columns that changed. The rating histogram is maintained by
+// single-statement increments, and a full-row update would write back the counts it
+// loaded, undoing any review committed since.
 @Entity
 @Table(name = "products")
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -47,6 +53,9 @@ public class Product {
     
     private boolean upcoming = false;
     
+    @Embedded
+    private RatingHistogram ratingHistogram = new RatingHistogram();
+    
     @CreationTimestamp
     private LocalDateTime createdAt;
     
@@ -69,11 +78,20 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Review> reviews = new HashSet<>();
     
+    // Derived from the histogram, so mapping a product never loads its reviews
     @Transient
     public Double getAverageRating() {
-        if (reviews.isEmpty()) {
-            return 0.0;
-        }
-        return reviews.stream().mapToInt(Review::getRating).average().orElse(0.0);
+        return ratingHistogram != null ? ratingHistogram.average() : 0.0;
+    }
+    
+    // Review counts for 1 to 5 stars, in that order
+    @Transient
+    public List<Integer> getRatingDistribution() {
+        return ratingHistogram != null ? ratingHistogram.asList() : List.of(0, 0, 0, 0, 0);
+    }
+    
+    @Transient
+    public int getReviewCount() {
+        return ratingHistogram != null ? ratingHistogram.total() : 0;
     }
 }
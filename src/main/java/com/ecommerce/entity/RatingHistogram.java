@@ -0,0 +1,50 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Number of reviews per star rating, kept on the product row so the distribution and
+// the average come with the product instead of from its reviews
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RatingHistogram {
+    
+    @Column(name = "rating_1_count", nullable = false)
+    private int oneStar;
+    
+    @Column(name = "rating_2_count", nullable = false)
+    private int twoStar;
+    
+    @Column(name = "rating_3_count", nullable = false)
+    private int threeStar;
+    
+    @Column(name = "rating_4_count", nullable = false)
+    private int fourStar;
+    
+    @Column(name = "rating_5_count", nullable = false)
+    private int fiveStar;
+    
+    // Not getters, so ModelMapper doesn't try to map them
+    public List<Integer> asList() {
+        return List.of(oneStar, twoStar, threeStar, fourStar, fiveStar);
+    }
+    
+    public int total() {
+        return oneStar + twoStar + threeStar + fourStar + fiveStar;
+    }
+    
+    public double average() {
+        int total = total();
+        if (total == 0) {
+            return 0.0;
+        }
+        return (oneStar + 2.0 * twoStar + 3.0 * threeStar + 4.0 * fourStar + 5.0 * fiveStar) / total;
+    }
+}
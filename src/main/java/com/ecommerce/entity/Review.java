@@ -10,7 +10,13 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", uniqueConstraints = {
+        // One review per user and product; also serves the "has reviewed" lookups
+        @UniqueConstraint(name = "uk_reviews_user_product", columnNames = {"user_id", "product_id"})
+}, indexes = {
+        // Newest-first review pages seek on (created_at, id) within a product
+        @Index(name = "idx_reviews_product_created", columnList = "product_id, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
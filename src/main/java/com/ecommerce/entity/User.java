@@ -13,7 +13,10 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Range scan for TokenRevocationRegistry's periodic refresh
+        @Index(name = "idx_users_token_version_updated_at", columnList = "token_version_updated_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -54,6 +57,12 @@ public class User {
     @Column(nullable = false)
     private Role role;
     
+    // Bumped to invalidate every token issued to this user (logout, forced re-login)
+    @Column(nullable = false)
+    private int tokenVersion = 0;
+    
+    private LocalDateTime tokenVersionUpdatedAt;
+    
     @CreationTimestamp
     private LocalDateTime createdAt;
     
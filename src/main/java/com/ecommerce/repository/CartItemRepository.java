@@ -2,17 +2,75 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.CartItem;
-import com.ecommerce.entity.User;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
-    List<CartItem> findByUser(User user);
-    Optional<CartItem> findByUserAndProductId(User user, Long productId);
-    void deleteByUserAndProductId(User user, Long productId);
-    void deleteByUser(User user);
+    List<CartItem> findByUserId(Long userId);
+    
+    @Query("SELECT c FROM CartItem c JOIN FETCH c.product WHERE c.user.id = :userId ORDER BY c.id")
+    List<CartItem> findByUserIdWithProduct(@Param("userId") Long userId);
+    
+    // [productId, quantity] pairs, for pricing without loading the entities
+    @Query("SELECT c.product.id, c.quantity FROM CartItem c WHERE c.user.id = :userId")
+    List<Object[]> findQuantitiesByUserId(@Param("userId") Long userId);
+    
+    List<CartItem> findByUserIdIn(Collection<Long> userIds);
+    
+    @Query("SELECT c FROM CartItem c JOIN FETCH c.product WHERE c.user.id = :userId AND c.product.id = :productId")
+    Optional<CartItem> findByUserIdAndProductIdWithProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    // Inserts the line or adds to its quantity in one statement; relies on uk_cart_items_user_product.
+    // A null size keeps the one already chosen.
+    @Modifying
+    @Query(value = "INSERT INTO cart_items (user_id, product_id, quantity, selected_size, created_at, updated_at) "
+            + "VALUES (:userId, :productId, :quantity, :selectedSize, NOW(6), NOW(6)) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), "
+            + "selected_size = COALESCE(VALUES(selected_size), selected_size), updated_at = NOW(6)",
+            nativeQuery = true)
+    int upsertAddQuantity(@Param("userId") Long userId, @Param("productId") Long productId,
+                          @Param("quantity") int quantity, @Param("selectedSize") String selectedSize);
+    
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.id = :userId AND c.product.id = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+    
+    // One row per user with a cart, in user id order after the given id (keyset pagination)
+    @Query("SELECT c.user.id AS userId, MAX(c.updatedAt) AS lastActivity, MAX(c.reminderSentAt) AS reminderSentAt, " +
+           "SUM(c.quantity) AS itemCount FROM CartItem c WHERE c.user.id > :afterUserId " +
+           "GROUP BY c.user.id ORDER BY c.user.id")
+    List<CartActivity> findCartActivityAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE CartItem c SET c.reminderSentAt = :sentAt WHERE c.user.id = :userId")
+    int markReminderSent(@Param("userId") Long userId, @Param("sentAt") LocalDateTime sentAt);
+    
+    // Lines touched after the cutoff survive, in case the user came back since the scan
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.id IN :userIds AND c.updatedAt < :cutoff")
+    int deleteStaleByUserIds(@Param("userIds") Collection<Long> userIds, @Param("cutoff") LocalDateTime cutoff);
+    
+    interface CartActivity {
+        Long getUserId();
+        LocalDateTime getLastActivity();
+        LocalDateTime getReminderSentAt();
+        Long getItemCount();
+    }
 }
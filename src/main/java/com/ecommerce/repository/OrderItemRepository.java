@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +20,12 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     @Query("SELECT oi.product.id, COUNT(oi) FROM OrderItem oi GROUP BY oi.product.id ORDER BY COUNT(oi) DESC")
     List<Object[]> findMostOrderedProducts(Pageable pageable);
+    
+    // [userId, productId] pairs, among the given users and products, where the user has
+    // paid for an order of the product that wasn't cancelled
+    @Query("SELECT DISTINCT oi.order.user.id, oi.product.id FROM OrderItem oi " +
+           "WHERE oi.order.user.id IN :userIds AND oi.product.id IN :productIds " +
+           "AND oi.order.paymentCompleted = true AND oi.order.status <> 'CANCELLED'")
+    List<Object[]> findPurchasedPairs(@Param("userIds") Collection<Long> userIds,
+                                      @Param("productIds") Collection<Long> productIds);
 }
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,8 @@ import java.util.Optional;
 public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUser(User user);
     Optional<Order> findByOrderNumber(String orderNumber);
+    Optional<Order> findByPaymentOrderId(String paymentOrderId);
+    List<Order> findByPaymentOrderIdIn(Collection<String> paymentOrderIds);
     
     @Query("SELECT o FROM Order o WHERE o.id IN " +
            "(SELECT oi.order.id FROM OrderItem oi WHERE oi.product.user.id = :sellerId)")
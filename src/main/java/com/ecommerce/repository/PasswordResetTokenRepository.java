@@ -1,17 +1,32 @@
-
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.PasswordResetToken;
 import com.ecommerce.entity.User;
+import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, Long> {
     
-    Optional<PasswordResetToken> findByToken(String token);
+    @Query("SELECT t.expiryDate FROM PasswordResetToken t WHERE t.tokenHash = :tokenHash")
+    Optional<LocalDateTime> findExpiryDateByTokenHash(@Param("tokenHash") String tokenHash);
+    
+    @Query("SELECT t.user FROM PasswordResetToken t WHERE t.tokenHash = :tokenHash")
+    Optional<User> findUserByTokenHash(@Param("tokenHash") String tokenHash);
+    
+    @Modifying
+    @Query("DELETE FROM PasswordResetToken t WHERE t.user.id = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
     
-    void deleteByUser(User user);
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM password_reset_tokens WHERE expiry_date < :now LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
 }
@@ -0,0 +1,67 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.PaymentWebhookEvent;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+    
+    // Returns 1 when the event was stored and 0 when it was a redelivery skipped on
+    // uk_payment_webhook_events_event. IGNORE rather than ON DUPLICATE KEY UPDATE, since the
+    // driver reports a no-op duplicate update as 1 row. IGNORE also turns over-long values into
+    // silent truncation, so callers must check lengths first.
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO payment_webhook_events " +
+           "(event_id, event_type, payment_order_id, payment_id, payload, status, attempts, received_at) " +
+           "VALUES (:eventId, :eventType, :paymentOrderId, :paymentId, :payload, 'PENDING', 0, NOW(6))",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("eventId") String eventId,
+                       @Param("eventType") String eventType,
+                       @Param("paymentOrderId") String paymentOrderId,
+                       @Param("paymentId") String paymentId,
+                       @Param("payload") String payload);
+    
+    // Compared with the database clock, the same one markAttemptFailed uses
+    @Query("SELECT e FROM PaymentWebhookEvent e WHERE e.status = 'PENDING' " +
+           "AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= CURRENT_TIMESTAMP) ORDER BY e.id")
+    List<PaymentWebhookEvent> findPending(Pageable pageable);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent e SET e.status = :status, e.processedAt = :now, e.attempts = e.attempts + 1 " +
+           "WHERE e.id IN :ids")
+    int markDone(@Param("ids") Collection<Long> ids,
+                 @Param("status") PaymentWebhookEvent.Status status,
+                 @Param("now") LocalDateTime now);
+    
+    // Counts a failed attempt and holds the event back for backoffMs, doubled per earlier
+    // failure; events that used up their attempts stop being picked up
+    @Transactional
+    @Modifying
+    // (MySQL applies SET assignments left to right, so status and delay use attempts before it moves)
+    @Query(value = "UPDATE payment_webhook_events " +
+           "SET status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE status END, " +
+           "next_attempt_at = NOW(6) + INTERVAL ((:backoffMs << attempts) * 1000) MICROSECOND, " +
+           "attempts = attempts + 1 " +
+           "WHERE id IN (:ids)",
+           nativeQuery = true)
+    int markAttemptFailed(@Param("ids") Collection<Long> ids,
+                          @Param("maxAttempts") int maxAttempts,
+                          @Param("backoffMs") long backoffMs);
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PaymentWebhookEvent e WHERE e.status <> 'PENDING' AND e.receivedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,14 +3,17 @@ package com.ecommerce.repository;
 
 import com.ecommerce.entity.Product;
 import com.ecommerce.entity.User;
+import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -35,4 +38,54 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findTop8ByOrderByCreatedAtDesc();
     
     Page<Product> findByUser(User seller, Pageable pageable);
+    
+    // Moves one vote between histogram buckets in a single statement; 0 means "none",
+    // so (5, 0) counts a new 5-star review and (4, 2) re-rates a 2 as a 4
+    @Modifying
+    @Query("UPDATE Product p SET " +
+           "p.ratingHistogram.oneStar = p.ratingHistogram.oneStar + (CASE WHEN :added = 1 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 1 THEN 1 ELSE 0 END), " +
+           "p.ratingHistogram.twoStar = p.ratingHistogram.twoStar + (CASE WHEN :added = 2 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 2 THEN 1 ELSE 0 END), " +
+           "p.ratingHistogram.threeStar = p.ratingHistogram.threeStar + (CASE WHEN :added = 3 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 3 THEN 1 ELSE 0 END), " +
+           "p.ratingHistogram.fourStar = p.ratingHistogram.fourStar + (CASE WHEN :added = 4 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 4 THEN 1 ELSE 0 END), " +
+           "p.ratingHistogram.fiveStar = p.ratingHistogram.fiveStar + (CASE WHEN :added = 5 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 5 THEN 1 ELSE 0 END) " +
+           "WHERE p.id = :productId")
+    int shiftRating(@Param("productId") Long productId, @Param("added") int added, @Param("removed") int removed);
+    
+    // [productId, sellerId] for a batch of products
+    @Query("SELECT p.id, p.user.id FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findSellerIdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIdsIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT MIN(p.id), MAX(p.id) FROM Product p")
+    List<Object[]> findIdRange();
+    
+    // Recounts the histograms of a range of products from their reviews
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE products p LEFT JOIN (" +
+           "SELECT product_id, SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3, " +
+           "SUM(rating = 4) AS r4, SUM(rating = 5) AS r5 FROM reviews " +
+           "WHERE product_id BETWEEN :fromId AND :toId GROUP BY product_id) r ON r.product_id = p.id " +
+           "SET p.rating_1_count = COALESCE(r.r1, 0), p.rating_2_count = COALESCE(r.r2, 0), " +
+           "p.rating_3_count = COALESCE(r.r3, 0), p.rating_4_count = COALESCE(r.r4, 0), " +
+           "p.rating_5_count = COALESCE(r.r5, 0) " +
+           "WHERE p.id BETWEEN :fromId AND :toId",
+           nativeQuery = true)
+    int rebuildRatingHistograms(@Param("fromId") Long fromId, @Param("toId") Long toId);
+    
+    // Same recount for a specific set of products
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE products p LEFT JOIN (" +
+           "SELECT product_id, SUM(rating = 1) AS r1, SUM(rating = 2) AS r2, SUM(rating = 3) AS r3, " +
+           "SUM(rating = 4) AS r4, SUM(rating = 5) AS r5 FROM reviews " +
+           "WHERE product_id IN (:ids) GROUP BY product_id) r ON r.product_id = p.id " +
+           "SET p.rating_1_count = COALESCE(r.r1, 0), p.rating_2_count = COALESCE(r.r2, 0), " +
+           "p.rating_3_count = COALESCE(r.r3, 0), p.rating_4_count = COALESCE(r.r4, 0), " +
+           "p.rating_5_count = COALESCE(r.r5, 0) " +
+           "WHERE p.id IN (:ids)",
+           nativeQuery = true)
+    int rebuildRatingHistogramsFor(@Param("ids") Collection<Long> ids);
 }
@@ -2,18 +2,60 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.Review;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByProductId(Long productId);
-    Page<Review> findByProductId(Long productId, Pageable pageable);
+    
+    @Query(value = "SELECT r FROM Review r JOIN FETCH r.user WHERE r.product.id = :productId",
+           countQuery = "SELECT COUNT(r) FROM Review r WHERE r.product.id = :productId")
+    Page<Review> findByProductIdWithUser(@Param("productId") Long productId, Pageable pageable);
+    
+    // One page of reviews older than the (createdAt, id) cursor, newest first, with their
+    // authors. Starts from the product so it also answers whether the product exists:
+    // no rows means no product, a single row of nulls means no (more) reviews.
+    // Columns: reviewId, rating, comment, createdAt, userId, userName
+    @Query("SELECT r.id, r.rating, r.comment, r.createdAt, u.id, u.name FROM Product p " +
+           "LEFT JOIN Review r ON r.product = p AND (r.createdAt < :beforeCreatedAt " +
+           "OR (r.createdAt = :beforeCreatedAt AND r.id < :beforeId)) " +
+           "LEFT JOIN r.user u " +
+           "WHERE p.id = :productId " +
+           "ORDER BY r.createdAt DESC, r.id DESC")
+    List<Object[]> findReviewPageBefore(@Param("productId") Long productId,
+                                        @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                        @Param("beforeId") Long beforeId,
+                                        Pageable pageable);
+    
+
     Optional<Review> findByUserIdAndProductId(Long userId, Long productId);
+    
+    // Locks the user's review, so concurrent edits see each other's rating and move the
+    // histogram vote from the right bucket
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.user.id = :userId AND r.product.id = :productId")
+    Optional<Review> findByUserIdAndProductIdForUpdate(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    // [userId, productId] pairs that already have a review, among the given users and products
+    @Query("SELECT r.user.id, r.product.id FROM Review r WHERE r.user.id IN :userIds AND r.product.id IN :productIds")
+    List<Object[]> findReviewedPairs(@Param("userIds") Collection<Long> userIds,
+                                     @Param("productIds") Collection<Long> productIds);
+    
     boolean existsByUserIdAndProductId(Long userId, Long productId);
+    
+    // Of the given products, those the user has reviewed; a range of probes on uk_reviews_user_product
+    @Query("SELECT r.product.id FROM Review r WHERE r.user.id = :userId AND r.product.id IN :productIds")
+    List<Long> findReviewedProductIds(@Param("userId") Long userId, @Param("productIds") Collection<Long> productIds);
 }
@@ -3,12 +3,37 @@ package com.ecommerce.repository;
 
 import com.ecommerce.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1, u.tokenVersionUpdatedAt = :now " +
+           "WHERE u.id = :userId")
+    int incrementTokenVersion(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :userId")
+    Optional<Integer> findTokenVersionById(@Param("userId") Long userId);
+    
+    @Query("SELECT u.id, u.tokenVersion FROM User u WHERE u.tokenVersionUpdatedAt > :since")
+    List<Object[]> findTokenVersionsUpdatedSince(@Param("since") LocalDateTime since);
+    
+    // [id, email, name] for a batch of users, without loading the entities
+    @Query("SELECT u.id, u.email, u.name FROM User u WHERE u.id IN :ids")
+    List<Object[]> findContactsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // [email, id] for a batch of emails
+    @Query("SELECT u.email, u.id FROM User u WHERE u.email IN :emails")
+    List<Object[]> findIdsByEmailIn(@Param("emails") Collection<String> emails);
 }
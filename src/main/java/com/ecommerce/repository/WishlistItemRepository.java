@@ -1,9 +1,11 @@
 
 package com.ecommerce.repository;
 
-import com.ecommerce.entity.User;
 import com.ecommerce.entity.WishlistItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,8 +13,28 @@ import java.util.Optional;
 
 @Repository
 public interface WishlistItemRepository extends JpaRepository<WishlistItem, Long> {
-    List<WishlistItem> findByUser(User user);
-    Optional<WishlistItem> findByUserAndProductId(User user, Long productId);
-    void deleteByUserAndProductId(User user, Long productId);
-    boolean existsByUserAndProductId(User user, Long productId);
+    @Query("SELECT w FROM WishlistItem w JOIN FETCH w.product WHERE w.user.id = :userId ORDER BY w.createdAt DESC")
+    List<WishlistItem> findByUserIdWithProduct(@Param("userId") Long userId);
+    
+    @Query("SELECT w FROM WishlistItem w JOIN FETCH w.product WHERE w.user.id = :userId AND w.product.id = :productId")
+    Optional<WishlistItem> findByUserIdAndProductIdWithProduct(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    // Returns 1 when the row was inserted and 0 when it was skipped, either because it was
+    // already there (uk_wishlist_items_user_product) or because the product doesn't exist:
+    // IGNORE turns both errors into warnings. Not ON DUPLICATE KEY UPDATE, which Connector/J
+    // reports as 1 for an unchanged duplicate unless useAffectedRows is set.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO wishlist_items (user_id, product_id, created_at) "
+            + "VALUES (:userId, :productId, NOW(6))",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    @Modifying
+    @Query("DELETE FROM WishlistItem w WHERE w.user.id = :userId AND w.product.id = :productId")
+    int deleteByUserIdAndProductId(@Param("userId") Long userId, @Param("productId") Long productId);
+    
+    boolean existsByUserIdAndProductId(Long userId, Long productId);
+    
+    @Query("SELECT w.product.id FROM WishlistItem w WHERE w.user.id = :userId")
+    List<Long> findProductIdsByUserId(@Param("userId") Long userId);
 }
@@ -1,11 +1,13 @@
 
 package com.ecommerce.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,6 +18,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -26,16 +29,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
     
+    @Autowired
+    private TokenRevocationRegistry revocationRegistry;
+    
+    @Value("${app.jwt.stateless-auth:false}")
+    private boolean statelessAuth;
+    
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Optional<Claims> claims = StringUtils.hasText(jwt) ? tokenProvider.resolveClaims(jwt) : Optional.empty();
+            
+            // Refresh tokens are only good for /auth/refresh-token, never as bearer credentials
+            UserDetails userDetails = claims.isPresent() && !tokenProvider.isRefreshToken(claims.get())
+                    ? resolveUser(claims.get())
+                    : null;
+            
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -49,7 +62,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
-    private String getJwtFromRequest(HttpServletRequest request) {
+    private UserDetails resolveUser(Claims claims) {
+        int tokenVersion = tokenProvider.getTokenVersion(claims);
+        
+        if (statelessAuth) {
+            Long userId = claims.get("userId", Long.class);
+            if (userId == null || revocationRegistry.isRevoked(userId, tokenVersion)) {
+                return null;
+            }
+            return UserDetailsImpl.fromClaims(claims);
+        }
+        
+        UserDetailsImpl userDetails = (UserDetailsImpl) userDetailsService.loadUserByUsername(claims.getSubject());
+        return tokenVersion >= userDetails.getTokenVersion() ? userDetails : null;
+    }
+    
+    static String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
@@ -4,9 +4,11 @@ package com.ecommerce.security;
 import com.ecommerce.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -15,15 +17,21 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
+    public static final String REFRESH_TOKEN_TYPE = "refresh";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
@@ -33,9 +41,22 @@ public class JwtTokenProvider {
     @Value("${app.jwt.refresh-token.expiration}")
     private long refreshExpirationInMs;
     
-    private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    @Value("${app.jwt.verified-cache-size:4096}")
+    private int verifiedCacheSize;
+    
+    private Key signingKey;
+    
+    private JwtParser jwtParser;
+    
+    // Recently verified tokens, so repeat requests with the same bearer token skip the HMAC check
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
     
     public String generateToken(Authentication authentication) {
@@ -44,73 +65,82 @@ public class JwtTokenProvider {
         return Jwts.builder()
                 .setSubject(userPrincipal.getUsername())
                 .claim("userId", userPrincipal.getId())
+                .claim("name", userPrincipal.getName())
                 .claim("role", userPrincipal.getRole())
+                .claim("ver", userPrincipal.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationInMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
-    public String generateTokenFromUsername(String username, Long userId, String role) {
+    public String generateTokenFromUser(User user) {
         return Jwts.builder()
-                .setSubject(username)
-                .claim("userId", userId)
-                .claim("role", role)
+                .setSubject(user.getEmail())
+                .claim("userId", user.getId())
+                .claim("name", user.getName())
+                .claim("role", user.getRole().name())
+                .claim("ver", user.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationInMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
-    public String generateRefreshToken(User user) {
+    public String generateRefreshToken(User user, String tokenId) {
         return Jwts.builder()
+                .setId(tokenId)
                 .setSubject(user.getEmail())
                 .claim("userId", user.getId())
-                .claim("type", "refresh")
+                .claim("type", REFRESH_TOKEN_TYPE)
+                .claim("ver", user.getTokenVersion())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + refreshExpirationInMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
+    public long getRefreshExpirationInMs() {
+        return refreshExpirationInMs;
+    }
+    
+    public Optional<Claims> resolveClaims(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        
+        Claims cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (!isExpired(cached)) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(token);
+            return Optional.empty();
+        }
+        
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            cacheVerified(token, claims);
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+    
     public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-                
-        return claims.getSubject();
+        return parseClaims(token).getSubject();
     }
     
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-                
-        return claims.get("userId", Long.class);
+        return parseClaims(token).get("userId", Long.class);
     }
     
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return resolveClaims(token).isPresent();
     }
     
     public Authentication getAuthentication(String token, UserDetails userDetails) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = parseClaims(token);
         
         Collection<? extends GrantedAuthority> authorities = Arrays.stream(claims.get("role", String.class).split(","))
                 .map(SimpleGrantedAuthority::new)
@@ -118,4 +148,38 @@ public class JwtTokenProvider {
         
         return new UsernamePasswordAuthenticationToken(userDetails, "", authorities);
     }
+    
+    public boolean isRefreshToken(Claims claims) {
+        return REFRESH_TOKEN_TYPE.equals(claims.get("type", String.class));
+    }
+    
+    // Tokens issued before versioning was introduced carry no "ver" claim and count as version 0
+    public int getTokenVersion(Claims claims) {
+        Integer version = claims.get("ver", Integer.class);
+        return version != null ? version : 0;
+    }
+    
+    private Claims parseClaims(String token) {
+        return resolveClaims(token)
+                .orElseThrow(() -> new JwtException("Invalid or expired JWT token"));
+    }
+    
+    private void cacheVerified(String token, Claims claims) {
+        if (verifiedCacheSize <= 0) {
+            return;
+        }
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(this::isExpired);
+            // Still full of live tokens: start over rather than track recency on the hot path
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(token, claims);
+    }
+    
+    private boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
 }
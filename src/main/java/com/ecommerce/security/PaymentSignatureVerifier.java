@@ -0,0 +1,158 @@
+package com.ecommerce.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+// Checks gateway payment callbacks: the signature is the lowercase hex HMAC-SHA256 of
+// "orderId|paymentId" under the key secret. The key is set up once in a prototype Mac
+// whose initialized state each thread clones, so a check is just the HMAC itself. The
+// incoming hex is decoded into a per-thread buffer and compared to the raw MAC in
+// constant time; nothing is hex-encoded and nothing is allocated beyond the ids' bytes.
+@Component
+public class PaymentSignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 32;
+
+    private final SecretKeySpec key;
+    private final Mac prototype;
+    private final ThreadLocal<VerifierState> state;
+
+    public PaymentSignatureVerifier(@Value("${razorpay.key.secret}") String keySecret) {
+        key = new SecretKeySpec(keySecret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        try {
+            prototype = Mac.getInstance(ALGORITHM);
+            prototype.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+        state = ThreadLocal.withInitial(() -> new VerifierState(newMac()));
+    }
+
+    public boolean verify(String orderId, String paymentId, String signature) {
+        if (orderId == null || paymentId == null || signature == null || signature.length() != MAC_LENGTH * 2) {
+            return false;
+        }
+
+        VerifierState current = state.get();
+        if (!decodeHex(signature, current.expected)) {
+            return false;
+        }
+
+        Mac mac = current.mac;
+        update(mac, orderId, current);
+        mac.update((byte) '|');
+        update(mac, paymentId, current);
+        return matches(current);
+    }
+
+    // Webhook deliveries: the signature covers the raw request body
+    public boolean verify(byte[] payload, String signature) {
+        if (payload == null || signature == null || signature.length() != MAC_LENGTH * 2) {
+            return false;
+        }
+
+        VerifierState current = state.get();
+        if (!decodeHex(signature, current.expected)) {
+            return false;
+        }
+
+        current.mac.update(payload);
+        return matches(current);
+    }
+
+    private static boolean matches(VerifierState current) {
+        try {
+            current.mac.doFinal(current.computed, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC computation failed", e);
+        }
+
+        // Constant time, so timing says nothing about how much of a forged signature matched
+        boolean valid = MessageDigest.isEqual(current.computed, current.expected);
+        Arrays.fill(current.computed, (byte) 0);
+        return valid;
+    }
+
+    // Ids are ASCII; copying chars into a reused buffer avoids a getBytes allocation per call
+    private static void update(Mac mac, String value, VerifierState current) {
+        byte[] buffer = current.input;
+        int length = value.length();
+        int offset = 0;
+        while (offset < length) {
+            int chunk = Math.min(buffer.length, length - offset);
+            for (int i = 0; i < chunk; i++) {
+                char c = value.charAt(offset + i);
+                if (c > 0x7F) {
+                    // Not something the gateway sends; fall back to UTF-8 for the rest
+                    mac.update(buffer, 0, i);
+                    mac.update(value.substring(offset + i).getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                buffer[i] = (byte) c;
+            }
+            mac.update(buffer, 0, chunk);
+            offset += chunk;
+        }
+    }
+
+    private static boolean decodeHex(String hex, byte[] out) {
+        for (int i = 0; i < out.length; i++) {
+            int high = nibble(hex.charAt(2 * i));
+            int low = nibble(hex.charAt(2 * i + 1));
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            out[i] = (byte) ((high << 4) | low);
+        }
+        return true;
+    }
+
+    // ASCII hex only; Character.digit would also take other scripts' digits
+    private static int nibble(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private Mac newMac() {
+        try {
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            // Provider without clone support: pay for a fresh init once per thread instead
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM, prototype.getProvider());
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", ex);
+            }
+        }
+    }
+
+    private static final class VerifierState {
+
+        private final Mac mac;
+        private final byte[] expected = new byte[MAC_LENGTH];
+        private final byte[] computed = new byte[MAC_LENGTH];
+        private final byte[] input = new byte[64];
+
+        VerifierState(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.ecommerce.security;
+
+import com.ecommerce.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Runs ahead of JwtAuthenticationFilter so a rejected request never reaches the
+// user lookup. Authenticated callers are limited per user id (read from the cached
+// token claims), anonymous callers and the auth endpoints per client IP. The payment
+// webhook is exempt: each delivery is authenticated by its HMAC signature, and the
+// gateway sends bursts from a handful of addresses and redelivers anything refused.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> AUTH_PATHS = Set.of(
+            "/auth/login", "/auth/register", "/auth/forgot-password",
+            "/auth/reset-password", "/auth/refresh-token");
+
+    private static final Set<String> SEARCH_PATHS = Set.of("/products/search", "/products/filter");
+
+    private static final Set<String> EXEMPT_PATHS = Set.of("/payment/webhook");
+
+    @Autowired
+    private TokenBucketRateLimiter rateLimiter;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.auth.capacity:10}")
+    private long authCapacity;
+
+    @Value("${app.rate-limit.auth.refill-per-minute:10}")
+    private long authRefillPerMinute;
+
+    @Value("${app.rate-limit.search.capacity:40}")
+    private long searchCapacity;
+
+    @Value("${app.rate-limit.search.refill-per-minute:600}")
+    private long searchRefillPerMinute;
+
+    @Value("${app.rate-limit.default.capacity:200}")
+    private long defaultCapacity;
+
+    @Value("${app.rate-limit.default.refill-per-minute:6000}")
+    private long defaultRefillPerMinute;
+
+    private TokenBucketRateLimiter.Policy authPolicy;
+    private TokenBucketRateLimiter.Policy searchPolicy;
+    private TokenBucketRateLimiter.Policy defaultPolicy;
+
+    @PostConstruct
+    public void init() {
+        authPolicy = TokenBucketRateLimiter.Policy.perMinute("auth", authCapacity, authRefillPerMinute);
+        searchPolicy = TokenBucketRateLimiter.Policy.perMinute("search", searchCapacity, searchRefillPerMinute);
+        defaultPolicy = TokenBucketRateLimiter.Policy.perMinute("default", defaultCapacity, defaultRefillPerMinute);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || EXEMPT_PATHS.contains(pathOf(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TokenBucketRateLimiter.Policy policy = resolvePolicy(pathOf(request));
+
+        // Login and friends are always keyed by IP so a bot can't sidestep them with junk tokens
+        String subject = policy == authPolicy ? null : resolveUserKey(request);
+        String key = policy.name() + ":" + (subject != null ? subject : "ip:" + request.getRemoteAddr());
+
+        long retryAfterMs = rateLimiter.tryAcquire(key, policy);
+        if (retryAfterMs > 0) {
+            reject(response, retryAfterMs);
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private TokenBucketRateLimiter.Policy resolvePolicy(String path) {
+        if (AUTH_PATHS.contains(path)) {
+            return authPolicy;
+        }
+        if (SEARCH_PATHS.contains(path)) {
+            return searchPolicy;
+        }
+        return defaultPolicy;
+    }
+
+    private String resolveUserKey(HttpServletRequest request) {
+        String jwt = JwtAuthenticationFilter.getJwtFromRequest(request);
+        if (!StringUtils.hasText(jwt)) {
+            return null;
+        }
+
+        Long userId = tokenProvider.resolveClaims(jwt)
+                .filter(claims -> !tokenProvider.isRefreshToken(claims))
+                .map(claims -> claims.get("userId", Long.class))
+                .orElse(null);
+        return userId != null ? "user:" + userId : null;
+    }
+
+    private void reject(HttpServletResponse response, long retryAfterMs) throws IOException {
+        ApiResponse<Void> body = ApiResponse.<Void>builder()
+                .success(false)
+                .message("Too many requests, please slow down")
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMs + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
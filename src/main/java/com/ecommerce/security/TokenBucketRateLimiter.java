@@ -0,0 +1,138 @@
+package com.ecommerce.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets kept entirely in memory. Each bucket is a single AtomicLong updated
+// with CAS, and buckets live in independent shards so idle eviction can sweep one
+// shard at a time without a global pause.
+@Component
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    // Bucket state packs the last refill time (ms) and the remaining tokens (in
+    // thousandths of a token) into one long
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLIS_PER_TOKEN = 1000;
+    public static final long MAX_CAPACITY = TOKEN_MASK / MILLIS_PER_TOKEN;
+
+    private static final int SHARD_COUNT = 16;
+
+    @Value("${app.rate-limit.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @SuppressWarnings("unchecked")
+    private final Map<String, Bucket>[] shards = new Map[SHARD_COUNT];
+
+    private final long epochMs = System.currentTimeMillis();
+
+    public TokenBucketRateLimiter() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    // Returns 0 when a token was taken, otherwise how many ms until one becomes available
+    public long tryAcquire(String key, Policy policy) {
+        long now = System.currentTimeMillis() - epochMs;
+        Bucket bucket = shardFor(key).computeIfAbsent(key, k -> new Bucket(now, policy.capacity()));
+        return bucket.tryConsume(now, policy);
+    }
+
+    public int getTrackedBucketCount() {
+        int count = 0;
+        for (Map<String, Bucket> shard : shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long cutoff = System.currentTimeMillis() - epochMs - idleEvictionMs;
+        int evicted = 0;
+
+        for (Map<String, Bucket> shard : shards) {
+            for (Map.Entry<String, Bucket> entry : shard.entrySet()) {
+                if (entry.getValue().lastSeen < cutoff && shard.remove(entry.getKey(), entry.getValue())) {
+                    evicted++;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets", evicted);
+        }
+    }
+
+    private Map<String, Bucket> shardFor(String key) {
+        int hash = key.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+    }
+
+    public record Policy(String name, long capacity, double tokensPerMs) {
+
+        public Policy {
+            if (capacity < 1 || capacity > MAX_CAPACITY) {
+                throw new IllegalArgumentException("Rate limit capacity for '" + name + "' must be between 1 and " + MAX_CAPACITY);
+            }
+            if (tokensPerMs <= 0) {
+                throw new IllegalArgumentException("Rate limit refill rate for '" + name + "' must be positive");
+            }
+        }
+
+        public static Policy perMinute(String name, long capacity, long refillPerMinute) {
+            return new Policy(name, capacity, refillPerMinute / 60_000.0);
+        }
+    }
+
+    private static final class Bucket {
+
+        private final AtomicLong state;
+
+        // Tracked apart from the refill time so a client that keeps getting rejected
+        // is never mistaken for an idle one and handed a fresh, full bucket
+        private volatile long lastSeen;
+
+        Bucket(long now, long capacity) {
+            this.state = new AtomicLong(pack(now, capacity * MILLIS_PER_TOKEN));
+            this.lastSeen = now;
+        }
+
+        long tryConsume(long now, Policy policy) {
+            lastSeen = now;
+            long capacityMillis = policy.capacity() * MILLIS_PER_TOKEN;
+            double refillMillisPerMs = policy.tokensPerMs() * MILLIS_PER_TOKEN;
+
+            while (true) {
+                long current = state.get();
+                long lastRefill = current >>> TOKEN_BITS;
+                long tokens = current & TOKEN_MASK;
+
+                long added = (long) (Math.max(0, now - lastRefill) * refillMillisPerMs);
+                long available = Math.min(capacityMillis, tokens + added);
+                // Only move the refill clock forward when it produced something, so slow
+                // refill rates still accumulate under frequent polling
+                long refillTime = added > 0 ? now : lastRefill;
+
+                if (available < MILLIS_PER_TOKEN) {
+                    return Math.max(1, (long) Math.ceil((MILLIS_PER_TOKEN - available) / refillMillisPerMs));
+                }
+                if (state.compareAndSet(current, pack(refillTime, available - MILLIS_PER_TOKEN))) {
+                    return 0;
+                }
+            }
+        }
+
+        private static long pack(long time, long tokens) {
+            return (time << TOKEN_BITS) | tokens;
+        }
+    }
+}
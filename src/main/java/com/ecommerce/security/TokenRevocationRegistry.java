@@ -0,0 +1,94 @@
+package com.ecommerce.security;
+
+import com.ecommerce.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory view of users.token_version, so stateless authentication can reject
+// revoked tokens without a per-request query. Only users that revoked their tokens
+// within the last access-token lifetime have an entry: any token older than such a
+// revocation has expired by then, so the entry has nothing left to reject.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenRevocationRegistry {
+
+    // Overlap between refreshes, to tolerate clock skew between app instances and the database
+    private static final long REFRESH_OVERLAP_SECONDS = 60;
+
+    private final UserRepository userRepository;
+
+    @Value("${app.jwt.expiration:86400000}")
+    private long accessTokenExpirationMs;
+
+    private final Map<Long, Revocation> tokenVersions = new ConcurrentHashMap<>();
+
+    private volatile LocalDateTime lastRefresh;
+
+    @PostConstruct
+    public void init() {
+        // Older revocations only cover tokens that have expired already
+        lastRefresh = LocalDateTime.now()
+                .minusNanos(accessTokenExpirationMs * 1_000_000)
+                .minusSeconds(REFRESH_OVERLAP_SECONDS);
+        refresh();
+    }
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        Revocation revocation = tokenVersions.get(userId);
+        return revocation != null && tokenVersion < revocation.version();
+    }
+
+    @Transactional
+    public int revokeAll(Long userId) {
+        userRepository.incrementTokenVersion(userId, LocalDateTime.now());
+        int version = userRepository.findTokenVersionById(userId).orElse(0);
+
+        // Apply locally right away; other instances pick it up on their next refresh
+        tokenVersions.merge(userId, new Revocation(version, System.currentTimeMillis()), Revocation::latest);
+        return version;
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation-refresh-ms:30000}")
+    public void refresh() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Object[]> changed = userRepository.findTokenVersionsUpdatedSince(lastRefresh);
+
+        long now = System.currentTimeMillis();
+        for (Object[] row : changed) {
+            tokenVersions.merge((Long) row[0], new Revocation((Integer) row[1], now), Revocation::latest);
+        }
+        lastRefresh = startedAt.minusSeconds(REFRESH_OVERLAP_SECONDS);
+
+        long expiredBefore = now - accessTokenExpirationMs - REFRESH_OVERLAP_SECONDS * 1000;
+        int pruned = 0;
+        for (Map.Entry<Long, Revocation> entry : tokenVersions.entrySet()) {
+            if (entry.getValue().seenAtMillis() < expiredBefore && tokenVersions.remove(entry.getKey(), entry.getValue())) {
+                pruned++;
+            }
+        }
+
+        if (!changed.isEmpty() || pruned > 0) {
+            log.debug("Refreshed token versions for {} users, pruned {}", changed.size(), pruned);
+        }
+    }
+
+    // seenAtMillis is when this instance learned of the version, never earlier than the revocation
+    private record Revocation(int version, long seenAtMillis) {
+
+        // A version seen again through the refresh overlap keeps its first sighting
+        static Revocation latest(Revocation current, Revocation update) {
+            return update.version > current.version ? update : current;
+        }
+    }
+}
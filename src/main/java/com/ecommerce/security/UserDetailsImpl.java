@@ -3,6 +3,7 @@ package com.ecommerce.security;
 
 import com.ecommerce.entity.User;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,6 +29,7 @@ public class UserDetailsImpl implements UserDetails {
     private String password;
     
     private String role;
+    private int tokenVersion;
     private Collection<? extends GrantedAuthority> authorities;
     
     public static UserDetailsImpl build(User user) {
@@ -41,10 +43,26 @@ public class UserDetailsImpl implements UserDetails {
                 .email(user.getEmail())
                 .password(user.getPassword())
                 .role(user.getRole().name())
+                .tokenVersion(user.getTokenVersion())
                 .authorities(authorities)
                 .build();
     }
     
+    // Principal rebuilt from already verified token claims, without touching the users table
+    public static UserDetailsImpl fromClaims(Claims claims) {
+        String role = claims.get("role", String.class);
+        Integer tokenVersion = claims.get("ver", Integer.class);
+        
+        return UserDetailsImpl.builder()
+                .id(claims.get("userId", Long.class))
+                .name(claims.get("name", String.class))
+                .email(claims.getSubject())
+                .role(role)
+                .tokenVersion(tokenVersion != null ? tokenVersion : 0)
+                .authorities(List.of(new SimpleGrantedAuthority("ROLE_" + role)))
+                .build();
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
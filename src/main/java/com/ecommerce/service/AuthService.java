@@ -14,6 +14,8 @@ public interface AuthService {
     
     AuthResponse refreshToken(String refreshToken);
     
+    void logout();
+    
     void forgotPassword(String email);
     
     void resetPassword(ResetPasswordRequest resetRequest);
@@ -1,8 +1,10 @@
 
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CartBulkRequest;
 import com.ecommerce.dto.CartItemDto;
 import com.ecommerce.dto.CartItemRequest;
+import com.ecommerce.dto.CartSummaryDto;
 
 import java.util.List;
 
@@ -12,4 +14,6 @@ public interface CartService {
     CartItemDto updateCartItem(CartItemRequest cartItemRequest);
     void removeFromCart(Long productId);
     void clearCart();
+    CartSummaryDto getCartSummary();
+    List<CartItemDto> applyBulk(CartBulkRequest bulkRequest);
 }
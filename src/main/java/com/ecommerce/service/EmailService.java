@@ -11,4 +11,9 @@ public interface EmailService {
     void sendHtmlEmail(String to, String subject, String htmlBody) throws MessagingException;
     
     void sendTemplatedEmail(String to, String subject, String templateName, Map<String, Object> templateModel) throws MessagingException;
+    
+    // onDelivered runs once the mail server has accepted the message, which may be after
+    // this returns; it does not run if the message is never delivered
+    void sendTemplatedEmail(String to, String subject, String templateName, Map<String, Object> templateModel,
+                            Runnable onDelivered) throws MessagingException;
 }
@@ -6,6 +6,8 @@ import com.ecommerce.dto.OrderRequest;
 import com.ecommerce.entity.Order;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface OrderService {
     OrderDto createOrder(OrderRequest orderRequest);
@@ -14,4 +16,5 @@ public interface OrderService {
     OrderDto getOrderDetails(Long orderId);
     OrderDto updateOrderStatus(Long orderId, Order.OrderStatus status);
     OrderDto completePayment(Long orderId, String paymentId);
+    Set<String> completePayments(Map<String, String> paymentIdsByPaymentOrderId);
 }
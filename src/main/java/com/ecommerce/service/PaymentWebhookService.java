@@ -0,0 +1,5 @@
+package com.ecommerce.service;
+
+public interface PaymentWebhookService {
+    boolean receiveEvent(byte[] body, String signature, String eventId);
+}
@@ -21,4 +21,6 @@ public interface ProductService {
     List<ProductDto> getLatestProducts();
     List<ProductDto> getUpcomingProducts();
     List<ProductDto> getFeaturedProducts();
+    List<ProductDto> getTrendingProducts(int limit);
+    Page<ProductDto> getTrendingProducts(Pageable pageable);
 }
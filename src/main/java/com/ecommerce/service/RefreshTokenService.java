@@ -0,0 +1,10 @@
+package com.ecommerce.service;
+
+import com.ecommerce.entity.User;
+import io.jsonwebtoken.Claims;
+
+public interface RefreshTokenService {
+    String createRefreshToken(User user);
+    String rotateRefreshToken(Claims claims, User user);
+    void revokeAllForUser(Long userId);
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ReviewImportResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ReviewImportService {
+    ReviewImportResultDto importReviews(InputStream ndjson) throws IOException;
+}
@@ -2,13 +2,19 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.ReviewDto;
+import com.ecommerce.dto.ReviewPageDto;
 import com.ecommerce.dto.ReviewRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+import java.util.Set;
+
 public interface ReviewService {
     ReviewDto addReview(ReviewRequest reviewRequest);
     Page<ReviewDto> getProductReviews(Long productId, Pageable pageable);
+    ReviewPageDto getProductReviewPage(Long productId, String cursor, int size);
     ReviewDto getUserReviewForProduct(Long productId);
     boolean hasUserReviewedProduct(Long productId);
+    Set<Long> findReviewedProducts(List<Long> productIds);
 }
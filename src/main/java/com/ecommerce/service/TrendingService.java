@@ -0,0 +1,13 @@
+package com.ecommerce.service;
+
+import java.util.List;
+
+public interface TrendingService {
+    void recordView(Long productId);
+    void recordCartAdd(Long productId, int quantity);
+    void recordWishlistAdd(Long productId);
+    void recordOrder(Long productId, int quantity);
+    double getScore(Long productId);
+    List<Long> getTrendingProductIds(int limit);
+    int getTrackedProductCount();
+}
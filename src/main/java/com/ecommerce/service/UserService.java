@@ -2,12 +2,16 @@
 package com.ecommerce.service;
 
 import com.ecommerce.dto.UserDto;
+import com.ecommerce.dto.UserSummary;
 import com.ecommerce.entity.User;
 
 public interface UserService {
     User createUser(String name, String email, String password, User.Role role);
     User findByEmail(String email);
     User findById(Long id);
+    UserSummary findSummaryById(Long id);
+    User getReferenceById(Long id);
+    void evictUser(Long id);
     boolean existsByEmail(String email);
     UserDto updateProfile(Long userId, UserDto userDto);
     UserDto getCurrentUserProfile();
@@ -15,4 +19,5 @@ public interface UserService {
     void createPasswordResetTokenForUser(User user, String token);
     boolean validatePasswordResetToken(String token);
     User getUserByPasswordResetToken(String token);
+    void invalidatePasswordResetTokens(User user);
 }
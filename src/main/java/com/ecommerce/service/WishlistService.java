@@ -4,10 +4,12 @@ package com.ecommerce.service;
 import com.ecommerce.dto.WishlistItemDto;
 
 import java.util.List;
+import java.util.Set;
 
 public interface WishlistService {
     List<WishlistItemDto> getWishlistItems();
     WishlistItemDto addToWishlist(Long productId);
     void removeFromWishlist(Long productId);
     boolean isProductInWishlist(Long productId);
+    Set<Long> findProductsInWishlist(List<Long> productIds);
 }
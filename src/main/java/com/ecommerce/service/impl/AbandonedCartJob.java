@@ -0,0 +1,223 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.EmailService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Walks cart_items one batch of users at a time (keyset on user_id, so memory stays at
+// one batch no matter how big the table is). Carts idle past the reminder age get a
+// reminder email, sent from a small pool so the scan never waits on SMTP. Carts idle
+// past the retention age are deleted. The scan paces itself to a fraction of wall time
+// and stands aside while requests are waiting for database connections.
+@Component
+@Slf4j
+public class AbandonedCartJob {
+
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final DataSource dataSource;
+    private final ThreadPoolExecutor emailExecutor;
+
+    @Value("${app.cart.abandoned.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cart.abandoned.remind-after-hours:24}")
+    private long remindAfterHours;
+
+    @Value("${app.cart.abandoned.retention-days:90}")
+    private long retentionDays;
+
+    @Value("${app.cart.abandoned.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cart.abandoned.max-batches:2000}")
+    private int maxBatches;
+
+    // Share of wall time the scan may spend working; the rest it sleeps
+    @Value("${app.cart.abandoned.max-duty-cycle:0.2}")
+    private double maxDutyCycle;
+
+    // How long to wait for the connection pool to calm down before giving up on this run
+    @Value("${app.cart.abandoned.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${app.frontend.url:http://localhost:5173}")
+    private String frontendUrl;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public AbandonedCartJob(CartItemRepository cartItemRepository,
+                            UserRepository userRepository,
+                            EmailService emailService,
+                            DataSource dataSource,
+                            @Value("${app.cart.abandoned.email-threads:2}") int emailThreads,
+                            @Value("${app.cart.abandoned.email-queue-capacity:1000}") int emailQueueCapacity) {
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.emailService = emailService;
+        this.dataSource = dataSource;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("cart-reminder-");
+        threadFactory.setDaemon(true);
+        this.emailExecutor = new ThreadPoolExecutor(emailThreads, emailThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(emailQueueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Scheduled(cron = "${app.cart.abandoned.cron:0 15 * * * *}")
+    public void scanAbandonedCarts() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime remindCutoff = now.minusHours(remindAfterHours);
+            LocalDateTime purgeCutoff = now.minusDays(retentionDays);
+
+            long afterUserId = 0;
+            int scanned = 0;
+            int queued = 0;
+            int purged = 0;
+
+            for (int batchNumber = 0; batchNumber < maxBatches; batchNumber++) {
+                if (!waitForIdleConnections()) {
+                    log.info("Abandoned cart scan stopped early, database stayed busy");
+                    break;
+                }
+
+                long started = System.nanoTime();
+                List<CartItemRepository.CartActivity> batch =
+                        cartItemRepository.findCartActivityAfter(afterUserId, PageRequest.of(0, batchSize));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                afterUserId = batch.get(batch.size() - 1).getUserId();
+                scanned += batch.size();
+
+                List<Long> toPurge = new ArrayList<>();
+                Map<Long, Long> toRemind = new HashMap<>();
+                for (CartItemRepository.CartActivity cart : batch) {
+                    LocalDateTime lastActivity = cart.getLastActivity();
+                    if (lastActivity == null || lastActivity.isAfter(remindCutoff)) {
+                        continue;
+                    }
+                    if (lastActivity.isBefore(purgeCutoff)) {
+                        toPurge.add(cart.getUserId());
+                    } else if (cart.getReminderSentAt() == null || cart.getReminderSentAt().isBefore(lastActivity)) {
+                        // Nothing sent yet, or the user came back after the last reminder
+                        toRemind.put(cart.getUserId(), cart.getItemCount());
+                    }
+                }
+
+                if (!toPurge.isEmpty()) {
+                    purged += cartItemRepository.deleteStaleByUserIds(toPurge, purgeCutoff);
+                }
+                if (!toRemind.isEmpty()) {
+                    queued += queueReminders(toRemind);
+                }
+
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                pause(System.nanoTime() - started);
+            }
+
+            log.info("Abandoned cart scan: {} carts checked, {} reminders queued, {} stale lines purged",
+                    scanned, queued, purged);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emailExecutor.shutdown();
+    }
+
+    // Contacts for the whole batch in one query; stops queueing once the pool is full,
+    // and whoever didn't make it is picked up again by the next run
+    private int queueReminders(Map<Long, Long> itemCounts) {
+        int queued = 0;
+        for (Object[] contact : userRepository.findContactsByIdIn(itemCounts.keySet())) {
+            Long userId = (Long) contact[0];
+            String email = (String) contact[1];
+            String name = (String) contact[2];
+            Long itemCount = itemCounts.get(userId);
+
+            try {
+                emailExecutor.execute(() -> sendReminder(userId, email, name, itemCount));
+                queued++;
+            } catch (RejectedExecutionException e) {
+                log.warn("Cart reminder queue is full, deferring {} reminders to the next run", itemCounts.size() - queued);
+                break;
+            }
+        }
+        return queued;
+    }
+
+    private void sendReminder(Long userId, String email, String name, Long itemCount) {
+        try {
+            Map<String, Object> templateModel = new HashMap<>();
+            templateModel.put("name", name);
+            templateModel.put("itemCount", itemCount);
+            templateModel.put("cartLink", frontendUrl + "/cart");
+
+            // Marked only once the server has accepted the email, which with the mail dispatcher
+            // happens later on its thread; a reminder that is never delivered is tried again next run
+            emailService.sendTemplatedEmail(email, "You left something in your cart", "abandoned-cart-email", templateModel,
+                    () -> cartItemRepository.markReminderSent(userId, LocalDateTime.now()));
+        } catch (Exception e) {
+            log.warn("Failed to send abandoned cart reminder to user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    // Sleeps long enough that the work just done stays within the duty cycle
+    private void pause(long workedNanos) throws InterruptedException {
+        double duty = Math.min(1.0, Math.max(0.01, maxDutyCycle));
+        long sleepMs = (long) (TimeUnit.NANOSECONDS.toMillis(workedNanos) * (1 - duty) / duty);
+        if (sleepMs > 0) {
+            Thread.sleep(sleepMs);
+        }
+    }
+
+    // Requests queueing for a connection means checkout is competing with us; back off
+    // with growing sleeps until the queue drains, or give up after maxBackoffMs
+    private boolean waitForIdleConnections() throws InterruptedException {
+        HikariPoolMXBean pool = dataSource instanceof HikariDataSource hikari ? hikari.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return true;
+        }
+
+        long deadline = System.currentTimeMillis() + maxBackoffMs;
+        long backoffMs = 100;
+        while (pool.getThreadsAwaitingConnection() > 0 || pool.getIdleConnections() == 0) {
+            if (System.currentTimeMillis() + backoffMs > deadline) {
+                return false;
+            }
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, 5_000);
+        }
+        return true;
+    }
+}
@@ -7,13 +7,19 @@ import com.ecommerce.dto.RegisterRequest;
 import com.ecommerce.dto.ResetPasswordRequest;
 import com.ecommerce.entity.User;
 import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ServiceUnavailableException;
 import com.ecommerce.security.JwtTokenProvider;
+import com.ecommerce.security.PasswordHashingExecutor;
+import com.ecommerce.security.TokenRevocationRegistry;
 import com.ecommerce.security.UserDetailsImpl;
 import com.ecommerce.service.AuthService;
 import com.ecommerce.service.EmailService;
+import com.ecommerce.service.RefreshTokenService;
 import com.ecommerce.service.UserService;
 import jakarta.transaction.Transactional;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -34,9 +40,17 @@ public class AuthServiceImpl implements AuthService {
     private final EmailService emailService;
     private final JwtTokenProvider tokenProvider;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final RefreshTokenService refreshTokenService;
+    
+    @Value("${app.jwt.single-session:false}")
+    private boolean singleSession;
     
     @Override
     public AuthResponse login(AuthRequest loginRequest) {
+        checkHashingCapacity();
+        
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getEmail(),
@@ -47,9 +61,15 @@ public class AuthServiceImpl implements AuthService {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
         
+        // Signing in again invalidates every token handed out to earlier sessions
+        if (singleSession) {
+            userDetails.setTokenVersion(revocationRegistry.revokeAll(userDetails.getId()));
+            userService.evictUser(userDetails.getId());
+        }
+        
         String accessToken = tokenProvider.generateToken(authentication);
         User user = userService.findById(userDetails.getId());
-        String refreshToken = tokenProvider.generateRefreshToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
         
         return AuthResponse.builder()
                 .token(accessToken)
@@ -64,6 +84,8 @@ public class AuthServiceImpl implements AuthService {
     @Override
     @Transactional
     public AuthResponse register(RegisterRequest registerRequest) {
+        checkHashingCapacity();
+        
         if (userService.existsByEmail(registerRequest.getEmail())) {
             throw new BadRequestException("Email is already taken");
         }
@@ -78,16 +100,15 @@ public class AuthServiceImpl implements AuthService {
                 role
         );
         
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        registerRequest.getEmail(),
-                        registerRequest.getPassword()
-                )
-        );
+        // The password was hashed by createUser a moment ago; authenticating again
+        // through the AuthenticationManager would run BCrypt a second time
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
         
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String accessToken = tokenProvider.generateToken(authentication);
-        String refreshToken = tokenProvider.generateRefreshToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
         
         // Send welcome email
         try {
@@ -116,21 +137,22 @@ public class AuthServiceImpl implements AuthService {
     
     @Override
     public AuthResponse refreshToken(String refreshToken) {
-        if (!tokenProvider.validateToken(refreshToken)) {
-            throw new BadRequestException("Invalid refresh token");
+        Claims claims = tokenProvider.resolveClaims(refreshToken)
+                .filter(tokenProvider::isRefreshToken)
+                .orElseThrow(() -> new BadRequestException("Invalid refresh token"));
+        
+        User user = userService.findById(claims.get("userId", Long.class));
+        if (tokenProvider.getTokenVersion(claims) < user.getTokenVersion()) {
+            throw new BadRequestException("Refresh token has been revoked");
         }
         
-        String username = tokenProvider.getUsernameFromToken(refreshToken);
-        Long userId = tokenProvider.getUserIdFromToken(refreshToken);
-        User user = userService.findById(userId);
-        
-        String accessToken = tokenProvider.generateTokenFromUsername(
-            username, userId, user.getRole().name()
-        );
+        // Every refresh hands out a new refresh token and retires the presented one
+        String rotatedRefreshToken = refreshTokenService.rotateRefreshToken(claims, user);
+        String accessToken = tokenProvider.generateTokenFromUser(user);
         
         return AuthResponse.builder()
                 .token(accessToken)
-                .refreshToken(refreshToken)
+                .refreshToken(rotatedRefreshToken)
                 .userType(user.getRole().name())
                 .name(user.getName())
                 .email(user.getEmail())
@@ -138,6 +160,17 @@ public class AuthServiceImpl implements AuthService {
                 .build();
     }
     
+    @Override
+    public void logout() {
+        UserDetailsImpl userDetails = (UserDetailsImpl) SecurityContextHolder.getContext()
+                .getAuthentication().getPrincipal();
+        
+        revocationRegistry.revokeAll(userDetails.getId());
+        refreshTokenService.revokeAllForUser(userDetails.getId());
+        userService.evictUser(userDetails.getId());
+        SecurityContextHolder.clearContext();
+    }
+    
     @Override
     @Transactional
     public void forgotPassword(String email) {
@@ -175,6 +208,9 @@ public class AuthServiceImpl implements AuthService {
         user.setPassword(passwordEncoder.encode(resetRequest.getPassword()));
         userService.saveUser(user);
         
+        // Reset links are single use
+        userService.invalidatePasswordResetTokens(user);
+        
         // Send confirmation email
         try {
             Map<String, Object> templateModel = new HashMap<>();
@@ -196,4 +232,11 @@ public class AuthServiceImpl implements AuthService {
     public boolean validatePasswordResetToken(String token) {
         return userService.validatePasswordResetToken(token);
     }
+    
+    // Shed load before touching the database when every hashing slot is already taken
+    private void checkHashingCapacity() {
+        if (passwordHashingExecutor.isSaturated()) {
+            throw new ServiceUnavailableException("Too many sign-in attempts right now, please retry shortly");
+        }
+    }
 }
@@ -1,25 +1,29 @@
 
 package com.ecommerce.service.impl;
 
+import com.ecommerce.dto.CartBulkOperation;
+import com.ecommerce.dto.CartBulkRequest;
 import com.ecommerce.dto.CartItemDto;
 import com.ecommerce.dto.CartItemRequest;
+import com.ecommerce.dto.CartSummaryDto;
 import com.ecommerce.entity.CartItem;
 import com.ecommerce.entity.Product;
-import com.ecommerce.entity.User;
+import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.repository.CartItemRepository;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.security.UserDetailsImpl;
 import com.ecommerce.service.CartService;
-import com.ecommerce.service.UserService;
+import com.ecommerce.service.TrendingService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,12 +32,18 @@ public class CartServiceImpl implements CartService {
     
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
-    private final UserService userService;
+    private final TrendingService trendingService;
+    private final CartWriteBehindStore cartStore;
+    private final ProductPriceCache priceCache;
     
     @Override
     public List<CartItemDto> getCartItems() {
-        User currentUser = getCurrentUser();
-        List<CartItem> cartItems = cartItemRepository.findByUser(currentUser);
+        if (cartStore.isEnabled()) {
+            return mapLines(cartStore.getLines(getCurrentUserId()));
+        }
+        
+        // Products come with the rows, so mapping doesn't fire a query per line
+        List<CartItem> cartItems = cartItemRepository.findByUserIdWithProduct(getCurrentUserId());
         
         return cartItems.stream()
                 .map(this::mapToCartItemDto)
@@ -43,40 +53,43 @@ public class CartServiceImpl implements CartService {
     @Override
     @Transactional
     public CartItemDto addToCart(CartItemRequest cartItemRequest) {
-        User currentUser = getCurrentUser();
-        Product product = getProduct(cartItemRequest.getProductId());
-        
-        // Check if the product already exists in the cart
-        Optional<CartItem> existingCartItem = cartItemRepository.findByUserAndProductId(currentUser, product.getId());
-        
-        CartItem cartItem;
-        if (existingCartItem.isPresent()) {
-            // Update the quantity
-            cartItem = existingCartItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + cartItemRequest.getQuantity());
-        } else {
-            // Create new cart item
-            cartItem = new CartItem();
-            cartItem.setUser(currentUser);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(cartItemRequest.getQuantity());
+        if (cartStore.isEnabled()) {
+            Product product = getProduct(cartItemRequest.getProductId());
+            CartWriteBehindStore.CartLine line = cartStore.add(getCurrentUserId(), product.getId(),
+                    cartItemRequest.getQuantity(), cartItemRequest.getSelectedSize());
+            trendingService.recordCartAdd(product.getId(), cartItemRequest.getQuantity());
+            return mapToCartItemDto(line, product);
         }
         
-        // Update the selected size if provided
-        if (cartItemRequest.getSelectedSize() != null) {
-            cartItem.setSelectedSize(cartItemRequest.getSelectedSize());
+        Long userId = getCurrentUserId();
+        Long productId = cartItemRequest.getProductId();
+        
+        // Insert-or-increment in one statement, so concurrent adds can't create duplicate lines
+        try {
+            cartItemRepository.upsertAddQuantity(userId, productId,
+                    cartItemRequest.getQuantity(), cartItemRequest.getSelectedSize());
+        } catch (DataIntegrityViolationException e) {
+            // The only foreign key that can fail here is the product
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
         }
         
-        CartItem savedCartItem = cartItemRepository.save(cartItem);
-        return mapToCartItemDto(savedCartItem);
+        CartItem cartItem = cartItemRepository.findByUserIdAndProductIdWithProduct(userId, productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
+        trendingService.recordCartAdd(productId, cartItemRequest.getQuantity());
+        return mapToCartItemDto(cartItem);
     }
     
     @Override
     @Transactional
     public CartItemDto updateCartItem(CartItemRequest cartItemRequest) {
-        User currentUser = getCurrentUser();
+        if (cartStore.isEnabled()) {
+            CartWriteBehindStore.CartLine line = cartStore.update(getCurrentUserId(), cartItemRequest.getProductId(),
+                            cartItemRequest.getQuantity(), cartItemRequest.getSelectedSize())
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
+            return mapToCartItemDto(line, getProduct(line.productId()));
+        }
         
-        CartItem cartItem = cartItemRepository.findByUserAndProductId(currentUser, cartItemRequest.getProductId())
+        CartItem cartItem = cartItemRepository.findByUserIdAndProductIdWithProduct(getCurrentUserId(), cartItemRequest.getProductId())
                 .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
         
         // Update quantity
@@ -94,15 +107,161 @@ public class CartServiceImpl implements CartService {
     @Override
     @Transactional
     public void removeFromCart(Long productId) {
-        User currentUser = getCurrentUser();
-        cartItemRepository.deleteByUserAndProductId(currentUser, productId);
+        if (cartStore.isEnabled()) {
+            cartStore.remove(getCurrentUserId(), productId);
+            return;
+        }
+        
+        cartItemRepository.deleteByUserIdAndProductId(getCurrentUserId(), productId);
     }
     
     @Override
     @Transactional
     public void clearCart() {
-        User currentUser = getCurrentUser();
-        cartItemRepository.deleteByUser(currentUser);
+        if (cartStore.isEnabled()) {
+            cartStore.clear(getCurrentUserId());
+            return;
+        }
+        
+        cartItemRepository.deleteByUserId(getCurrentUserId());
+    }
+    
+    @Override
+    public CartSummaryDto getCartSummary() {
+        Long userId = getCurrentUserId();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        if (cartStore.isEnabled()) {
+            cartStore.getLines(userId).forEach(line -> quantities.merge(line.productId(), line.quantity(), Integer::sum));
+        } else {
+            cartItemRepository.findQuantitiesByUserId(userId)
+                    .forEach(row -> quantities.merge((Long) row[0], (Integer) row[1], Integer::sum));
+        }
+        
+        return priceCache.summarize(quantities, priceCache.getSnapshots(quantities.keySet()));
+    }
+    
+    @Override
+    @Transactional
+    public List<CartItemDto> applyBulk(CartBulkRequest bulkRequest) {
+        List<CartBulkOperation> operations = bulkRequest.getOperations();
+        validateBulkOperations(bulkRequest);
+        
+        // Every product touched by an ADD or UPDATE, in one query
+        Set<Long> productIds = operations.stream()
+                .filter(op -> op.getType() != CartBulkOperation.Type.REMOVE)
+                .map(CartBulkOperation::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+        productIds.stream()
+                .filter(productId -> !products.containsKey(productId))
+                .findFirst()
+                .ifPresent(productId -> {
+                    throw new ResourceNotFoundException("Product not found with id: " + productId);
+                });
+        
+        Long userId = getCurrentUserId();
+        if (cartStore.isEnabled()) {
+            Map<Long, Integer> added = new HashMap<>();
+            List<CartWriteBehindStore.CartLine> lines = cartStore.edit(userId,
+                    working -> added.putAll(applyOperations(working, bulkRequest)));
+            added.forEach(trendingService::recordCartAdd);
+            return mapLines(lines);
+        }
+        
+        List<CartItem> rows = cartItemRepository.findByUserIdWithProduct(userId);
+        Map<Long, CartWriteBehindStore.CartLine> working = new LinkedHashMap<>();
+        Map<Long, CartItem> rowsByProduct = new HashMap<>();
+        List<CartItem> toDelete = new ArrayList<>();
+        for (CartItem row : rows) {
+            if (rowsByProduct.putIfAbsent(row.getProduct().getId(), row) != null) {
+                toDelete.add(row);
+                continue;
+            }
+            working.put(row.getProduct().getId(), new CartWriteBehindStore.CartLine(
+                    row.getId(), row.getProduct().getId(), row.getQuantity(), row.getSelectedSize()));
+        }
+        
+        Map<Long, Integer> added = applyOperations(working, bulkRequest);
+        
+        // Write back only what changed; updates to managed rows go out with the flush
+        List<CartWriteBehindStore.CartLine> toInsert = new ArrayList<>();
+        List<CartItem> result = new ArrayList<>();
+        for (CartWriteBehindStore.CartLine line : working.values()) {
+            CartItem row = rowsByProduct.remove(line.productId());
+            if (row == null) {
+                toInsert.add(line);
+                continue;
+            }
+            row.setQuantity(line.quantity());
+            row.setSelectedSize(line.selectedSize());
+            result.add(row);
+        }
+        toDelete.addAll(rowsByProduct.values());
+        
+        if (!toDelete.isEmpty()) {
+            cartItemRepository.deleteAllInBatch(toDelete);
+        }
+        if (!toInsert.isEmpty()) {
+            // Insert-or-increment like addToCart, so a line a concurrent add created since the
+            // read is added to instead of failing the unique key
+            for (CartWriteBehindStore.CartLine line : toInsert) {
+                cartItemRepository.upsertAddQuantity(userId, line.productId(), line.quantity(), line.selectedSize());
+            }
+            result = cartItemRepository.findByUserIdWithProduct(userId);
+        }
+        added.forEach(trendingService::recordCartAdd);
+        
+        return result.stream()
+                .map(this::mapToCartItemDto)
+                .collect(Collectors.toList());
+    }
+    
+    private void validateBulkOperations(CartBulkRequest bulkRequest) {
+        for (CartBulkOperation op : bulkRequest.getOperations()) {
+            if (bulkRequest.isMerge() && op.getType() != CartBulkOperation.Type.ADD) {
+                throw new BadRequestException("Only ADD operations are allowed when merging a cart");
+            }
+            if (op.getType() != CartBulkOperation.Type.REMOVE && op.getQuantity() == null) {
+                throw new BadRequestException("Quantity is required for " + op.getType() + " of product " + op.getProductId());
+            }
+        }
+    }
+    
+    // Applies the operations in order to the cart lines, keyed by product id. Shared by the
+    // database and the write-behind path so both give the same result. Returns how much
+    // each product's quantity grew, for the trending counters.
+    private Map<Long, Integer> applyOperations(Map<Long, CartWriteBehindStore.CartLine> lines, CartBulkRequest bulkRequest) {
+        Map<Long, Integer> addedQuantities = new HashMap<>();
+        for (CartBulkOperation op : bulkRequest.getOperations()) {
+            Long productId = op.getProductId();
+            CartWriteBehindStore.CartLine existing = lines.get(productId);
+            
+            switch (op.getType()) {
+                case ADD -> {
+                    int quantity = existing == null ? op.getQuantity()
+                            : bulkRequest.isMerge() ? Math.max(existing.quantity(), op.getQuantity())
+                            : existing.quantity() + op.getQuantity();
+                    int added = quantity - (existing == null ? 0 : existing.quantity());
+                    lines.put(productId, new CartWriteBehindStore.CartLine(
+                            existing == null ? null : existing.id(), productId, quantity,
+                            op.getSelectedSize() != null ? op.getSelectedSize()
+                                    : existing == null ? null : existing.selectedSize()));
+                    if (added > 0) {
+                        addedQuantities.merge(productId, added, Integer::sum);
+                    }
+                }
+                case UPDATE -> {
+                    if (existing == null) {
+                        throw new ResourceNotFoundException("Cart item not found for product id: " + productId);
+                    }
+                    lines.put(productId, new CartWriteBehindStore.CartLine(existing.id(), productId, op.getQuantity(),
+                            op.getSelectedSize() != null ? op.getSelectedSize() : existing.selectedSize()));
+                }
+                case REMOVE -> lines.remove(productId);
+            }
+        }
+        return addedQuantities;
     }
     
     private CartItemDto mapToCartItemDto(CartItem cartItem) {
@@ -118,10 +277,35 @@ public class CartServiceImpl implements CartService {
         return dto;
     }
     
-    private User getCurrentUser() {
+    // Products for all lines in one query, returned in cart order
+    private List<CartItemDto> mapLines(List<CartWriteBehindStore.CartLine> lines) {
+        Map<Long, Product> products = productRepository.findAllById(
+                        lines.stream().map(CartWriteBehindStore.CartLine::productId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        return lines.stream()
+                .filter(line -> products.containsKey(line.productId()))
+                .map(line -> mapToCartItemDto(line, products.get(line.productId())))
+                .collect(Collectors.toList());
+    }
+    
+    private CartItemDto mapToCartItemDto(CartWriteBehindStore.CartLine line, Product product) {
+        CartItemDto dto = new CartItemDto();
+        dto.setId(line.id());
+        dto.setProductId(product.getId());
+        dto.setName(product.getName());
+        dto.setImage(product.getImageUrl());
+        dto.setPrice(product.getPrice());
+        dto.setDiscountPrice(product.getDiscountPrice());
+        dto.setQuantity(line.quantity());
+        dto.setSelectedSize(line.selectedSize());
+        return dto;
+    }
+    
+    private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return userService.findById(userDetails.getId());
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
     }
     
     private Product getProduct(Long productId) {
@@ -0,0 +1,371 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.UserService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Optional write-behind layer for carts (app.cart.write-behind.enabled). Each active
+// user's cart lives in memory and is only touched under that user's lock. Dirty carts
+// are written to cart_items in batches on a fixed schedule, so the table trails memory
+// by at most about one flush interval. Checkout flushes synchronously and keeps the
+// cart locked until the order transaction completes, so orders always read cart_items.
+@Component
+@Slf4j
+public class CartWriteBehindStore {
+
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.cart.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.cart.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.cart.write-behind.idle-eviction-ms:900000}")
+    private long idleEvictionMs;
+
+    private final Map<Long, UserCart> carts = new ConcurrentHashMap<>();
+
+    public CartWriteBehindStore(CartItemRepository cartItemRepository,
+                                ProductRepository productRepository,
+                                UserService userService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.userService = userService;
+
+        // Flushes commit on their own, independent of whatever request happens to trigger them
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Gauge.builder("cart.write_behind.carts", carts, Map::size)
+                .description("Carts held in memory")
+                .register(meterRegistry);
+        Gauge.builder("cart.write_behind.dirty", carts, m -> m.values().stream().filter(c -> c.dirty).count())
+                .description("Carts with changes not yet written to cart_items")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<CartLine> getLines(Long userId) {
+        return withCart(userId, cart -> List.copyOf(cart.lines.values()));
+    }
+
+    public CartLine add(Long userId, Long productId, int quantity, String selectedSize) {
+        return withCart(userId, cart -> {
+            CartLine existing = cart.lines.get(productId);
+            CartLine line = existing == null
+                    ? new CartLine(null, productId, quantity, selectedSize)
+                    : new CartLine(existing.id(), productId, existing.quantity() + quantity,
+                            selectedSize != null ? selectedSize : existing.selectedSize());
+            cart.put(line);
+            return line;
+        });
+    }
+
+    public Optional<CartLine> update(Long userId, Long productId, int quantity, String selectedSize) {
+        return withCart(userId, cart -> {
+            CartLine existing = cart.lines.get(productId);
+            if (existing == null) {
+                return Optional.empty();
+            }
+            CartLine line = new CartLine(existing.id(), productId, quantity,
+                    selectedSize != null ? selectedSize : existing.selectedSize());
+            cart.put(line);
+            return Optional.of(line);
+        });
+    }
+
+    public void remove(Long userId, Long productId) {
+        withCart(userId, cart -> {
+            if (cart.lines.remove(productId) != null) {
+                cart.dirty = true;
+            }
+            return null;
+        });
+    }
+
+    public void clear(Long userId) {
+        withCart(userId, cart -> {
+            if (!cart.lines.isEmpty()) {
+                cart.lines.clear();
+                cart.dirty = true;
+            }
+            return null;
+        });
+    }
+
+    // Applies several changes as one: they work on a copy, so if the callback throws
+    // the cart is left exactly as it was
+    public List<CartLine> edit(Long userId, Consumer<Map<Long, CartLine>> changes) {
+        return withCart(userId, cart -> {
+            Map<Long, CartLine> working = new LinkedHashMap<>(cart.lines);
+            changes.accept(working);
+            if (!working.equals(cart.lines)) {
+                cart.lines.clear();
+                cart.lines.putAll(working);
+                cart.dirty = true;
+            }
+            return List.copyOf(cart.lines.values());
+        });
+    }
+
+    // Called at the start of checkout, inside the order transaction. Pending changes are
+    // committed first, then the cart stays locked until the order commits or rolls back.
+    // On commit the in-memory copy is dropped, since the order has just emptied the table.
+    public void flushForCheckout(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Checkout flush must run inside the order transaction");
+        }
+
+        UserCart cart = lockCart(userId);
+        try {
+            if (cart.dirty) {
+                writeBatch(List.of(cart));
+            }
+        } catch (RuntimeException e) {
+            cart.lock.unlock();
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        cart.evicted = true;
+                        carts.remove(userId, cart);
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval-ms:1000}")
+    public void flushDirtyCarts() {
+        if (!enabled) {
+            return;
+        }
+
+        // Carts locked by a mutation or a checkout are skipped and picked up next round
+        List<UserCart> batch = new ArrayList<>(batchSize);
+        for (UserCart cart : carts.values()) {
+            if (!cart.dirty || !cart.lock.tryLock()) {
+                continue;
+            }
+            if (!cart.dirty || cart.evicted) {
+                cart.lock.unlock();
+                continue;
+            }
+            batch.add(cart);
+            if (batch.size() == batchSize) {
+                flushAndUnlock(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flushAndUnlock(batch);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.eviction-interval-ms:60000}")
+    public void evictIdleCarts() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        for (UserCart cart : carts.values()) {
+            if (cart.dirty || cart.lastAccess >= cutoff || !cart.lock.tryLock()) {
+                continue;
+            }
+            try {
+                if (!cart.dirty && cart.lastAccess < cutoff) {
+                    cart.evicted = true;
+                    carts.remove(cart.userId, cart);
+                }
+            } finally {
+                cart.lock.unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDirtyCarts();
+    }
+
+    private <T> T withCart(Long userId, Function<UserCart, T> action) {
+        UserCart cart = lockCart(userId);
+        try {
+            if (!cart.loaded) {
+                cartItemRepository.findByUserId(userId).forEach(item -> cart.lines.putIfAbsent(
+                        item.getProduct().getId(),
+                        new CartLine(item.getId(), item.getProduct().getId(), item.getQuantity(), item.getSelectedSize())));
+                cart.loaded = true;
+            }
+            cart.lastAccess = System.currentTimeMillis();
+            return action.apply(cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    // A cart can be evicted between the lookup and the lock, so retry until the locked one is live
+    private UserCart lockCart(Long userId) {
+        while (true) {
+            UserCart cart = carts.computeIfAbsent(userId, UserCart::new);
+            cart.lock.lock();
+            if (!cart.evicted) {
+                return cart;
+            }
+            cart.lock.unlock();
+        }
+    }
+
+    private void flushAndUnlock(List<UserCart> batch) {
+        try {
+            writeBatch(batch);
+        } catch (RuntimeException e) {
+            // Retry one by one so a single bad cart doesn't hold back everyone else in the batch
+            log.warn("Batched cart flush of {} carts failed, retrying individually", batch.size(), e);
+            for (UserCart cart : batch) {
+                try {
+                    writeBatch(List.of(cart));
+                } catch (RuntimeException ex) {
+                    log.error("Flushing cart of user {} failed, will retry", cart.userId, ex);
+                }
+            }
+        } finally {
+            batch.forEach(cart -> cart.lock.unlock());
+        }
+    }
+
+    // Caller holds the lock of every cart in the batch
+    private void writeBatch(List<UserCart> batch) {
+        Map<Long, UserCart> byUser = new HashMap<>();
+        batch.forEach(cart -> byUser.put(cart.userId, cart));
+
+        List<CartItem> inserted = transactionTemplate.execute(status -> {
+            // Every read belongs in this transaction. At checkout the caller's transaction is
+            // suspended here, and a read made in it would pin its REPEATABLE READ snapshot
+            // to before this flush commits, hiding the lines it is about to order.
+            dropDeletedProducts(batch);
+
+            Map<Long, Map<Long, CartItem>> persisted = new HashMap<>();
+            List<CartItem> toDelete = new ArrayList<>();
+            for (CartItem item : cartItemRepository.findByUserIdIn(byUser.keySet())) {
+                CartItem previous = persisted.computeIfAbsent(item.getUser().getId(), k -> new HashMap<>())
+                        .putIfAbsent(item.getProduct().getId(), item);
+                if (previous != null) {
+                    toDelete.add(item);
+                }
+            }
+
+            List<CartItem> toInsert = new ArrayList<>();
+            for (UserCart cart : batch) {
+                Map<Long, CartItem> rows = persisted.getOrDefault(cart.userId, new HashMap<>());
+                for (CartLine line : cart.lines.values()) {
+                    CartItem row = rows.remove(line.productId());
+                    if (row == null) {
+                        row = new CartItem();
+                        row.setUser(userService.getReferenceById(cart.userId));
+                        row.setProduct(productRepository.getReferenceById(line.productId()));
+                        toInsert.add(row);
+                    }
+                    // Managed rows are written by dirty checking only if something changed
+                    row.setQuantity(line.quantity());
+                    row.setSelectedSize(line.selectedSize());
+                }
+                toDelete.addAll(rows.values());
+            }
+
+            if (!toDelete.isEmpty()) {
+                cartItemRepository.deleteAllInBatch(toDelete);
+            }
+            return cartItemRepository.saveAll(toInsert);
+        });
+
+        // Only after commit, so a rolled back flush never leaves ids of rows that don't exist
+        for (CartItem item : inserted) {
+            UserCart cart = byUser.get(item.getUser().getId());
+            cart.lines.computeIfPresent(item.getProduct().getId(),
+                    (productId, line) -> new CartLine(item.getId(), productId, line.quantity(), line.selectedSize()));
+        }
+        batch.forEach(cart -> cart.dirty = false);
+    }
+
+    // A product deleted while it sits in a buffered cart would fail the insert on its
+    // foreign key on every flush, and block that user's checkout for good. Such lines
+    // can't be ordered anyway, so they are dropped from memory before writing.
+    private void dropDeletedProducts(List<UserCart> batch) {
+        Set<Long> productIds = new HashSet<>();
+        batch.forEach(cart -> productIds.addAll(cart.lines.keySet()));
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        productIds.removeAll(productRepository.findExistingIdsIn(productIds));
+        if (productIds.isEmpty()) {
+            return;
+        }
+        for (UserCart cart : batch) {
+            if (cart.lines.keySet().removeAll(productIds)) {
+                log.info("Dropped deleted products from the cart of user {}", cart.userId);
+            }
+        }
+    }
+
+    // id is null until the line has been flushed for the first time
+    public record CartLine(Long id, Long productId, int quantity, String selectedSize) {
+    }
+
+    private static final class UserCart {
+
+        private final Long userId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+
+        // Guarded by lock; volatile so the schedulers can pre-filter without taking it
+        private boolean loaded;
+        private volatile boolean dirty;
+        private volatile boolean evicted;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        UserCart(Long userId) {
+            this.userId = userId;
+        }
+
+        void put(CartLine line) {
+            lines.put(line.productId(), line);
+            dirty = true;
+        }
+    }
+}
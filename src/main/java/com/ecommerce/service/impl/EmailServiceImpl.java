@@ -6,13 +6,11 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -21,22 +19,31 @@ public class EmailServiceImpl implements EmailService {
     @Autowired
     private JavaMailSender mailSender;
     
-    @Autowired(required = false)
-    private TemplateEngine templateEngine;
+    @Autowired
+    private MailDispatcher mailDispatcher;
+    
+    @Autowired
+    private EmailTemplateRenderer templateRenderer;
     
     @Value("${spring.mail.username:no-reply@ecommerce.com}")
     private String fromEmail;
 
     @Override
     public void sendSimpleEmail(String to, String subject, String body) {
+        sendSimpleEmail(to, subject, body, null);
+    }
+    
+    private void sendSimpleEmail(String to, String subject, String body, Runnable onDelivered) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
             
-            mailSender.send(message);
+            helper.setFrom(fromEmail);
+            helper.setTo(to);
+            helper.setSubject(subject);
+            helper.setText(body);
+            
+            deliver(message, onDelivered);
         } catch (Exception e) {
             System.err.println("Failed to send email: " + e.getMessage());
         }
@@ -44,6 +51,10 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendHtmlEmail(String to, String subject, String htmlBody) throws MessagingException {
+        sendHtmlEmail(to, subject, htmlBody, null);
+    }
+    
+    private void sendHtmlEmail(String to, String subject, String htmlBody, Runnable onDelivered) throws MessagingException {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -53,7 +64,7 @@ public class EmailServiceImpl implements EmailService {
             helper.setSubject(subject);
             helper.setText(htmlBody, true);
             
-            mailSender.send(message);
+            deliver(message, onDelivered);
         } catch (MessagingException e) {
             System.err.println("Failed to send HTML email: " + e.getMessage());
             throw e;
@@ -62,12 +73,15 @@ public class EmailServiceImpl implements EmailService {
 
     @Override
     public void sendTemplatedEmail(String to, String subject, String templateName, Map<String, Object> templateModel) throws MessagingException {
-        if (templateEngine != null) {
-            Context context = new Context();
-            context.setVariables(templateModel);
-            
-            String htmlContent = templateEngine.process(templateName, context);
-            sendHtmlEmail(to, subject, htmlContent);
+        sendTemplatedEmail(to, subject, templateName, templateModel, null);
+    }
+
+    @Override
+    public void sendTemplatedEmail(String to, String subject, String templateName, Map<String, Object> templateModel,
+                                   Runnable onDelivered) throws MessagingException {
+        if (templateRenderer.isAvailable()) {
+            String htmlContent = templateRenderer.render(templateName, templateModel);
+            sendHtmlEmail(to, subject, htmlContent, onDelivered);
         } else {
             // Fallback to simple text content if template engine is not available
             StringBuilder textContent = new StringBuilder();
@@ -81,11 +95,44 @@ public class EmailServiceImpl implements EmailService {
                 textContent.append("Welcome to our eCommerce platform! Thank you for registering with us.");
             } else if (templateName.contains("password-reset-confirmation")) {
                 textContent.append("Your password has been successfully reset. If you did not make this change, please contact our support team immediately.");
+            } else if (templateName.contains("abandoned-cart")) {
+                textContent.append("You still have ").append(templateModel.getOrDefault("itemCount", "some"))
+                          .append(" item(s) waiting in your cart. Pick up where you left off: ")
+                          .append(templateModel.getOrDefault("cartLink", ""));
+            } else if (templateName.contains("order-confirmation")) {
+                textContent.append("Thank you for your order! Your order #").append(templateModel.getOrDefault("orderNumber", ""))
+                          .append(" has been placed successfully.\n\nOrder Total: $").append(templateModel.getOrDefault("totalAmount", ""));
+            } else if (templateName.contains("order-status-digest")) {
+                textContent.append("There are updates on several of your orders:\n");
+                for (Object order : (Iterable<?>) templateModel.getOrDefault("orders", List.of())) {
+                    Map<?, ?> update = (Map<?, ?>) order;
+                    textContent.append("\n  #").append(update.get("orderNumber")).append(": ").append(update.get("status"));
+                }
+            } else if (templateName.contains("order-status")) {
+                textContent.append("Your order #").append(templateModel.getOrDefault("orderNumber", ""))
+                          .append(" has been updated to: ").append(templateModel.getOrDefault("status", ""));
+            } else if (templateName.contains("payment-confirmation")) {
+                textContent.append("Your payment for order #").append(templateModel.getOrDefault("orderNumber", ""))
+                          .append(" has been received successfully.\n\nPayment ID: ").append(templateModel.getOrDefault("paymentId", ""))
+                          .append("\nAmount: $").append(templateModel.getOrDefault("totalAmount", ""));
             }
             
             textContent.append("\n\nThank you,\nThe eCommerce Team");
             
-            sendSimpleEmail(to, subject, textContent.toString());
+            sendSimpleEmail(to, subject, textContent.toString(), onDelivered);
+        }
+    }
+    
+    // Queued for the pooled SMTP connections when the dispatcher is on; otherwise sent
+    // inline over a fresh connection as before
+    private void deliver(MimeMessage message, Runnable onDelivered) {
+        if (mailDispatcher.isEnabled()) {
+            mailDispatcher.enqueue(message, onDelivered);
+        } else {
+            mailSender.send(message);
+            if (onDelivered != null) {
+                onDelivered.run();
+            }
         }
     }
 }
@@ -0,0 +1,131 @@
+package com.ecommerce.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Renders the transactional email templates. Thymeleaf keeps each parsed template in its
+// cache (spring.thymeleaf.cache), and all of them are parsed once at startup so the first
+// customer email doesn't pay for it. Each thread reuses one Context and one pre-sized
+// output buffer, so a render allocates little beyond the resulting String.
+@Component
+@Slf4j
+public class EmailTemplateRenderer {
+
+    public static final List<String> TEMPLATES = List.of(
+            "welcome-email",
+            "reset-password-email",
+            "password-reset-confirmation",
+            "abandoned-cart-email",
+            "order-confirmation-email",
+            "order-status-email",
+            "order-status-digest-email",
+            "payment-confirmation-email");
+
+    // Buffers that grew past this are dropped after use rather than kept per thread
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private final TemplateEngine templateEngine;
+
+    private final ThreadLocal<RenderState> renderState;
+
+    public EmailTemplateRenderer(@Nullable TemplateEngine templateEngine,
+                                 @Value("${app.mail.template.buffer-size:8192}") int initialCapacity) {
+        this.templateEngine = templateEngine;
+        this.renderState = ThreadLocal.withInitial(() -> new RenderState(initialCapacity));
+    }
+
+    public boolean isAvailable() {
+        return templateEngine != null;
+    }
+
+    public String render(String templateName, Map<String, Object> model) {
+        RenderState state = renderState.get();
+        state.context.clearVariables();
+        state.context.setVariables(model);
+        state.buffer.setLength(0);
+        try {
+            templateEngine.process(templateName, state.context, state.writer);
+            return state.buffer.toString();
+        } finally {
+            state.context.clearVariables();
+            if (state.buffer.capacity() > MAX_RETAINED_CAPACITY) {
+                renderState.remove();
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (templateEngine == null) {
+            return;
+        }
+        for (String template : TEMPLATES) {
+            try {
+                render(template, Map.of());
+            } catch (RuntimeException e) {
+                log.warn("Email template {} failed to load: {}", template, e.getMessage());
+            }
+        }
+    }
+
+    private static final class RenderState {
+
+        private final Context context = new Context(Locale.getDefault());
+        private final StringBuilder buffer;
+        private final Writer writer;
+
+        RenderState(int initialCapacity) {
+            this.buffer = new StringBuilder(initialCapacity);
+            this.writer = new StringBuilderWriter(buffer);
+        }
+    }
+
+    // StringWriter minus the synchronized StringBuffer underneath
+    private static final class StringBuilderWriter extends Writer {
+
+        private final StringBuilder buffer;
+
+        StringBuilderWriter(StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+        }
+
+        @Override
+        public void write(String str) {
+            buffer.append(str);
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            buffer.append(str, offset, offset + length);
+        }
+
+        @Override
+        public void write(int c) {
+            buffer.append((char) c);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.ecommerce.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Sends mail off the request thread. Messages wait in a bounded queue; each worker owns
+// one SMTP connection that stays open between messages, so the TCP and STARTTLS/AUTH
+// handshake is paid once per connection instead of once per email. A worker takes
+// whatever has queued up (up to batchSize) and pushes it through its connection back to
+// back. Failed messages are retried with exponential backoff, then dropped and counted.
+@Component
+@Slf4j
+public class MailDispatcher {
+
+    private final JavaMailSender mailSender;
+    private final boolean enabled;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long enqueueTimeoutMs;
+    private final long idleCloseMs;
+    private final int maxMessagesPerConnection;
+
+    private final BlockingQueue<OutgoingMail> queue;
+    private final ExecutorService workerPool;
+    private final ScheduledExecutorService retryScheduler;
+    private volatile boolean running;
+
+    private final Timer sendTimer;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public MailDispatcher(JavaMailSender mailSender,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.mail.dispatch.enabled:true}") boolean enabled,
+                          @Value("${app.mail.dispatch.workers:4}") int workers,
+                          @Value("${app.mail.dispatch.queue-capacity:10000}") int queueCapacity,
+                          @Value("${app.mail.dispatch.batch-size:50}") int batchSize,
+                          @Value("${app.mail.dispatch.max-attempts:4}") int maxAttempts,
+                          @Value("${app.mail.dispatch.initial-backoff-ms:1000}") long initialBackoffMs,
+                          @Value("${app.mail.dispatch.enqueue-timeout-ms:2000}") long enqueueTimeoutMs,
+                          @Value("${app.mail.dispatch.idle-close-ms:30000}") long idleCloseMs,
+                          @Value("${app.mail.dispatch.max-messages-per-connection:100}") int maxMessagesPerConnection) {
+        this.mailSender = mailSender;
+        // Reusing connections needs the session and credentials, which only the stock sender exposes
+        this.enabled = enabled && mailSender instanceof JavaMailSenderImpl;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.idleCloseMs = idleCloseMs;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        CustomizableThreadFactory workerFactory = new CustomizableThreadFactory("mail-sender-");
+        workerFactory.setDaemon(true);
+        this.workerPool = Executors.newFixedThreadPool(workers, workerFactory);
+
+        CustomizableThreadFactory retryFactory = new CustomizableThreadFactory("mail-retry-");
+        retryFactory.setDaemon(true);
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(retryFactory);
+
+        Gauge.builder("mail.dispatch.queue", queue, BlockingQueue::size)
+                .description("Emails waiting for an SMTP connection")
+                .register(meterRegistry);
+        this.sendTimer = Timer.builder("mail.dispatch.send")
+                .description("Time to hand one message to the SMTP server, connection setup included")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("mail.dispatch.retried")
+                .description("Send attempts that failed and were scheduled again")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("mail.dispatch.failed")
+                .description("Emails dropped after the last attempt failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(new Worker());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(MimeMessage message) {
+        enqueue(message, null);
+    }
+
+    // Waits up to enqueueTimeoutMs for room, so a burst slows callers down rather than
+    // growing the queue without bound. onDelivered runs on the sending worker once the
+    // SMTP server has accepted the message, and never if it is finally dropped; keep it short.
+    public void enqueue(MimeMessage message, Runnable onDelivered) {
+        try {
+            // Headers are finalized now, on the caller's thread, so building errors surface here
+            if (message.getSentDate() == null) {
+                message.setSentDate(new Date());
+            }
+            message.saveChanges();
+
+            if (!running || !queue.offer(new OutgoingMail(message, 1, onDelivered), enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MailSendException("Mail queue is full, message not sent");
+            }
+        } catch (MessagingException e) {
+            throw new MailSendException("Could not prepare message", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrupted while queueing message", e);
+        }
+    }
+
+    // Stops taking new mail, lets the workers drain what is queued, then closes the connections.
+    // Retries still waiting for their backoff are given up, and counted as failed like any other.
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        int pendingRetries = retryScheduler.shutdownNow().size();
+        if (pendingRetries > 0) {
+            failedCounter.increment(pendingRetries);
+            log.warn("Mail dispatcher dropped {} emails waiting to be retried", pendingRetries);
+        }
+        workerPool.shutdown();
+        if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            workerPool.shutdownNow();
+            List<OutgoingMail> unsent = new ArrayList<>();
+            queue.drainTo(unsent);
+            failedCounter.increment(unsent.size());
+            log.warn("Mail dispatcher stopped with {} messages still queued", unsent.size());
+        }
+    }
+
+    private void scheduleRetry(OutgoingMail mail, Exception cause) {
+        // Rejected recipients won't become valid by waiting
+        boolean permanent = cause instanceof SendFailedException failed
+                && failed.getInvalidAddresses() != null && failed.getInvalidAddresses().length > 0
+                && (failed.getValidUnsentAddresses() == null || failed.getValidUnsentAddresses().length == 0);
+        if (permanent || mail.attempt() >= maxAttempts || !running) {
+            failedCounter.increment();
+            log.error("Giving up on email after {} attempt(s): {}", mail.attempt(), cause.getMessage());
+            return;
+        }
+
+        retriedCounter.increment();
+        long delayMs = initialBackoffMs << (mail.attempt() - 1);
+        OutgoingMail next = new OutgoingMail(mail.message(), mail.attempt() + 1, mail.onDelivered());
+        try {
+            retryScheduler.schedule(() -> {
+                if (!queue.offer(next)) {
+                    failedCounter.increment();
+                    log.error("Mail queue is full, dropping retried email");
+                }
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            failedCounter.increment();
+        }
+    }
+
+    // One long-lived connection per worker
+    private final class Worker implements Runnable {
+
+        private Transport transport;
+        private long lastUsed;
+        private int sentOnConnection;
+
+        @Override
+        public void run() {
+            List<OutgoingMail> batch = new ArrayList<>(batchSize);
+            try {
+                while (running || !queue.isEmpty()) {
+                    OutgoingMail first = queue.poll(1, TimeUnit.SECONDS);
+                    if (first == null) {
+                        // Nothing to send for a while; don't hold a connection the server will drop anyway
+                        if (System.currentTimeMillis() - lastUsed > idleCloseMs) {
+                            close();
+                        }
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+
+                    for (OutgoingMail mail : batch) {
+                        send(mail);
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        private void send(OutgoingMail mail) {
+            long started = System.nanoTime();
+            try {
+                Transport connection = connection();
+                connection.sendMessage(mail.message(), mail.message().getAllRecipients());
+                lastUsed = System.currentTimeMillis();
+                sentOnConnection++;
+                sendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            } catch (MessagingException | RuntimeException e) {
+                // The connection may be in an unknown state after a failure; start the next one fresh
+                close();
+                scheduleRetry(mail, e);
+                return;
+            }
+            delivered(mail);
+        }
+
+        // Outside the send's try, so a failing callback can't get a delivered message sent twice
+        private void delivered(OutgoingMail mail) {
+            if (mail.onDelivered() == null) {
+                return;
+            }
+            try {
+                mail.onDelivered().run();
+            } catch (RuntimeException e) {
+                log.warn("Delivery callback failed: {}", e.getMessage());
+            }
+        }
+
+        private Transport connection() throws MessagingException {
+            if (transport != null && sentOnConnection >= maxMessagesPerConnection) {
+                close();
+            }
+            // isConnected() costs a NOOP round trip, so only ask after a quiet spell
+            if (transport != null && System.currentTimeMillis() - lastUsed > 5_000 && !transport.isConnected()) {
+                close();
+            }
+            if (transport == null) {
+                JavaMailSenderImpl sender = (JavaMailSenderImpl) mailSender;
+                String protocol = sender.getProtocol() != null ? sender.getProtocol() : "smtp";
+                Transport opened = sender.getSession().getTransport(protocol);
+                opened.connect(sender.getHost(), sender.getPort(),
+                        StringUtils.hasLength(sender.getUsername()) ? sender.getUsername() : null,
+                        StringUtils.hasLength(sender.getPassword()) ? sender.getPassword() : null);
+                transport = opened;
+                lastUsed = System.currentTimeMillis();
+                sentOnConnection = 0;
+            }
+            return transport;
+        }
+
+        private void close() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Closing SMTP connection failed: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+
+    private record OutgoingMail(MimeMessage message, int attempt, Runnable onDelivered) {
+    }
+}
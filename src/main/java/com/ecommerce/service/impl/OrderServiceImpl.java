@@ -13,21 +13,23 @@ import com.ecommerce.repository.OrderRepository;
 import com.ecommerce.security.UserDetailsImpl;
 import com.ecommerce.service.EmailService;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.TrendingService;
 import com.ecommerce.service.UserService;
+import com.ecommerce.util.TransactionCallbacks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class OrderServiceImpl implements OrderService {
     
     private final OrderRepository orderRepository;
@@ -35,13 +37,20 @@ public class OrderServiceImpl implements OrderService {
     private final CartItemRepository cartItemRepository;
     private final UserService userService;
     private final EmailService emailService;
+    private final TrendingService trendingService;
     private final ModelMapper modelMapper;
+    private final CartWriteBehindStore cartStore;
+    private final ProductPriceCache priceCache;
+    private final OrderStatusNotifier statusNotifier;
     
     @Override
     @Transactional
     public OrderDto createOrder(OrderRequest orderRequest) {
         User currentUser = getCurrentUser();
-        List<CartItem> cartItems = cartItemRepository.findByUser(currentUser);
+        // With the write-behind cart enabled, cart_items is only authoritative after this
+        cartStore.flushForCheckout(currentUser.getId());
+        long pricesLoadStamp = priceCache.loadStamp();
+        List<CartItem> cartItems = cartItemRepository.findByUserIdWithProduct(currentUser.getId());
         
         if (cartItems.isEmpty()) {
             throw new IllegalStateException("Cannot create order with empty cart");
@@ -63,14 +72,15 @@ public class OrderServiceImpl implements OrderService {
         order.setCountry(orderRequest.getCountry());
         order.setPhone(orderRequest.getPhone());
         
-        // Calculate total amount
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Same computation as the cart summary, but from the product rows just loaded, so
+        // the order is priced from the database and any stale snapshot gets replaced
+        Map<Long, ProductPriceCache.PriceSnapshot> prices = new HashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (CartItem cartItem : cartItems) {
-            BigDecimal price = cartItem.getProduct().getDiscountPrice() != null ? 
-                    cartItem.getProduct().getDiscountPrice() : cartItem.getProduct().getPrice();
-            totalAmount = totalAmount.add(price.multiply(new BigDecimal(cartItem.getQuantity())));
+            prices.put(cartItem.getProduct().getId(), priceCache.refresh(cartItem.getProduct(), pricesLoadStamp));
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
         }
-        order.setTotalAmount(totalAmount);
+        order.setTotalAmount(priceCache.summarize(quantities, prices).getTotal());
         
         // Save order
         Order savedOrder = orderRepository.save(order);
@@ -81,17 +91,17 @@ public class OrderServiceImpl implements OrderService {
             orderItem.setOrder(savedOrder);
             orderItem.setProduct(cartItem.getProduct());
             orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setPrice(cartItem.getProduct().getDiscountPrice() != null ? 
-                    cartItem.getProduct().getDiscountPrice() : cartItem.getProduct().getPrice());
+            orderItem.setPrice(prices.get(cartItem.getProduct().getId()).effectivePrice());
             orderItem.setSelectedSize(cartItem.getSelectedSize());
             orderItem.setProductName(cartItem.getProduct().getName());
             orderItem.setProductImage(cartItem.getProduct().getImageUrl());
             
             orderItemRepository.save(orderItem);
+            trendingService.recordOrder(cartItem.getProduct().getId(), cartItem.getQuantity());
         }
         
         // Clear cart
-        cartItemRepository.deleteByUser(currentUser);
+        cartItemRepository.deleteByUserId(currentUser.getId());
         
         // Send email notification
         sendOrderConfirmationEmail(savedOrder);
@@ -159,8 +169,8 @@ public class OrderServiceImpl implements OrderService {
         order.setStatus(status);
         Order updatedOrder = orderRepository.save(order);
         
-        // Send status update email
-        sendOrderStatusUpdateEmail(updatedOrder);
+        // Rapid successive changes reach the buyer as one email
+        statusNotifier.statusChanged(updatedOrder);
         
         return mapToOrderDto(updatedOrder);
     }
@@ -177,18 +187,46 @@ public class OrderServiceImpl implements OrderService {
             throw new UnauthorizedException("You don't have permission to complete payment for this order");
         }
         
+        // The webhook may have got here first; keep its payment id and don't email twice
+        if (order.isPaymentCompleted()) {
+            return mapToOrderDto(order);
+        }
+        
         // Update payment information
         order.setPaymentId(paymentId);
         order.setPaymentCompleted(true);
         
         Order updatedOrder = orderRepository.save(order);
         
-        // Send payment confirmation email
-        sendPaymentConfirmationEmail(updatedOrder);
+        // Sent once committed, so the transaction isn't held open for the email
+        TransactionCallbacks.afterCommit(() -> sendPaymentConfirmationEmail(updatedOrder));
         
         return mapToOrderDto(updatedOrder);
     }
     
+    // Webhook path: marks a batch of orders paid in one transaction. Returns the gateway
+    // order ids that matched an order; those already paid (by the browser callback or an
+    // earlier event) are left as they are.
+    @Override
+    @Transactional
+    public Set<String> completePayments(Map<String, String> paymentIdsByPaymentOrderId) {
+        Set<String> matched = new HashSet<>();
+        List<Order> completed = new ArrayList<>();
+        for (Order order : orderRepository.findByPaymentOrderIdIn(paymentIdsByPaymentOrderId.keySet())) {
+            matched.add(order.getPaymentOrderId());
+            if (order.isPaymentCompleted()) {
+                continue;
+            }
+            // Managed rows; the updates go out as one JDBC batch at commit
+            order.setPaymentId(paymentIdsByPaymentOrderId.get(order.getPaymentOrderId()));
+            order.setPaymentCompleted(true);
+            completed.add(order);
+        }
+        
+        TransactionCallbacks.afterCommit(() -> completed.forEach(this::sendPaymentConfirmationEmail));
+        return matched;
+    }
+    
     private OrderDto mapToOrderDto(Order order) {
         OrderDto orderDto = modelMapper.map(order, OrderDto.class);
         
@@ -206,10 +244,11 @@ public class OrderServiceImpl implements OrderService {
         return UUID.randomUUID().toString().replaceAll("-", "").substring(0, 10).toUpperCase();
     }
     
+    // The current user is only needed as a foreign key here, so skip loading the row
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return userService.findById(userDetails.getId());
+        return userService.getReferenceById(userDetails.getId());
     }
     
     private UserDetailsImpl getCurrentUserDetails() {
@@ -218,36 +257,33 @@ public class OrderServiceImpl implements OrderService {
     }
     
     private void sendOrderConfirmationEmail(Order order) {
-        String subject = "Order Confirmation: " + order.getOrderNumber();
-        String content = "Dear " + order.getFullName() + ",\n\n" +
-                "Thank you for your order! Your order #" + order.getOrderNumber() + " has been placed successfully.\n\n" +
-                "Order Total: $" + order.getTotalAmount() + "\n\n" +
-                "We will process your order soon. You will receive another email once your order ships.\n\n" +
-                "Thank you for shopping with us!\n\n" +
-                "Best regards,\nThe Ecommerce Team";
-        
-        emailService.sendEmail(order.getEmail(), subject, content);
+        Map<String, Object> templateModel = orderTemplateModel(order);
+        templateModel.put("totalAmount", order.getTotalAmount());
+        
+        sendOrderEmail(order, "Order Confirmation: " + order.getOrderNumber(), "order-confirmation-email", templateModel);
     }
     
-    private void sendOrderStatusUpdateEmail(Order order) {
-        String subject = "Order Status Update: " + order.getOrderNumber();
-        String content = "Dear " + order.getFullName() + ",\n\n" +
-                "Your order #" + order.getOrderNumber() + " has been updated to: " + order.getStatus() + "\n\n" +
-                "Thank you for shopping with us!\n\n" +
-                "Best regards,\nThe Ecommerce Team";
+    private void sendPaymentConfirmationEmail(Order order) {
+        Map<String, Object> templateModel = orderTemplateModel(order);
+        templateModel.put("paymentId", order.getPaymentId());
+        templateModel.put("totalAmount", order.getTotalAmount());
         
-        emailService.sendEmail(order.getEmail(), subject, content);
+        sendOrderEmail(order, "Payment Confirmation: " + order.getOrderNumber(), "payment-confirmation-email", templateModel);
     }
     
-    private void sendPaymentConfirmationEmail(Order order) {
-        String subject = "Payment Confirmation: " + order.getOrderNumber();
-        String content = "Dear " + order.getFullName() + ",\n\n" +
-                "Your payment for order #" + order.getOrderNumber() + " has been received successfully.\n\n" +
-                "Payment ID: " + order.getPaymentId() + "\n" +
-                "Amount: $" + order.getTotalAmount() + "\n\n" +
-                "Thank you for shopping with us!\n\n" +
-                "Best regards,\nThe Ecommerce Team";
-        
-        emailService.sendEmail(order.getEmail(), subject, content);
+    private Map<String, Object> orderTemplateModel(Order order) {
+        Map<String, Object> templateModel = new HashMap<>();
+        templateModel.put("name", order.getFullName());
+        templateModel.put("orderNumber", order.getOrderNumber());
+        return templateModel;
+    }
+    
+    // A failed email must not fail the order change that triggered it
+    private void sendOrderEmail(Order order, String subject, String templateName, Map<String, Object> templateModel) {
+        try {
+            emailService.sendTemplatedEmail(order.getEmail(), subject, templateName, templateModel);
+        } catch (Exception e) {
+            log.warn("Failed to send {} for order {}", templateName, order.getOrderNumber(), e);
+        }
     }
 }
@@ -0,0 +1,135 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.entity.Order;
+import com.ecommerce.service.EmailService;
+import com.ecommerce.util.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Coalesces order status emails per recipient. The first change opens a window of
+// app.mail.status-digest.window-ms; everything else for that address until it closes is
+// folded in, keeping only the latest status of each order. When the window closes the
+// buyer gets one email: the usual status email for a single order, a digest for several.
+// The window is not extended by later changes, so no email waits longer than that.
+@Component
+@Slf4j
+public class OrderStatusNotifier {
+
+    private final EmailService emailService;
+
+    @Value("${app.mail.status-digest.window-ms:60000}")
+    private long windowMs;
+
+    private final Map<String, PendingDigest> pending = new ConcurrentHashMap<>();
+
+    public OrderStatusNotifier(EmailService emailService) {
+        this.emailService = emailService;
+    }
+
+    // Held until the status change commits; a rolled back change notifies nobody
+    public void statusChanged(Order order) {
+        StatusChange change = new StatusChange(order.getOrderNumber(), order.getStatus());
+        String email = order.getEmail();
+        String name = order.getFullName();
+
+        TransactionCallbacks.afterCommit(() -> hold(email, name, change));
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.status-digest.flush-interval-ms:1000}")
+    public void flushDue() {
+        flush(System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(Long.MAX_VALUE);
+    }
+
+    private void hold(String email, String name, StatusChange change) {
+        if (windowMs <= 0) {
+            send(new PendingDigest(email, name, System.currentTimeMillis(), change));
+            return;
+        }
+        pending.compute(email.toLowerCase(Locale.ROOT), (key, digest) -> {
+            if (digest == null) {
+                return new PendingDigest(email, name, System.currentTimeMillis(), change);
+            }
+            digest.add(change);
+            return digest;
+        });
+    }
+
+    private void flush(long now) {
+        for (String key : pending.keySet()) {
+            // Taken out under the map's lock for that key, so a concurrent hold either
+            // lands in this digest or starts a new one, never gets lost in between
+            PendingDigest[] due = new PendingDigest[1];
+            pending.computeIfPresent(key, (k, digest) -> {
+                if (now - digest.openedAt < windowMs) {
+                    return digest;
+                }
+                due[0] = digest;
+                return null;
+            });
+            if (due[0] != null) {
+                send(due[0]);
+            }
+        }
+    }
+
+    private void send(PendingDigest digest) {
+        List<StatusChange> changes = new ArrayList<>(digest.changes.values());
+        Map<String, Object> templateModel = new HashMap<>();
+        templateModel.put("name", digest.name);
+
+        try {
+            if (changes.size() == 1) {
+                StatusChange change = changes.get(0);
+                templateModel.put("orderNumber", change.orderNumber());
+                templateModel.put("status", change.status());
+                emailService.sendTemplatedEmail(digest.email, "Order Status Update: " + change.orderNumber(),
+                        "order-status-email", templateModel);
+            } else {
+                List<Map<String, Object>> orders = new ArrayList<>(changes.size());
+                for (StatusChange change : changes) {
+                    orders.add(Map.of("orderNumber", change.orderNumber(), "status", change.status()));
+                }
+                templateModel.put("orders", orders);
+                emailService.sendTemplatedEmail(digest.email, "Updates on " + changes.size() + " of your orders",
+                        "order-status-digest-email", templateModel);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to send order status email for {} order(s): {}", changes.size(), e.getMessage());
+        }
+    }
+
+    private record StatusChange(String orderNumber, Order.OrderStatus status) {
+    }
+
+    private static final class PendingDigest {
+
+        private final String email;
+        private final String name;
+        private final long openedAt;
+
+        // Latest status per order, in the order the orders first changed
+        private final Map<String, StatusChange> changes = new LinkedHashMap<>();
+
+        PendingDigest(String email, String name, long openedAt, StatusChange first) {
+            this.email = email;
+            this.name = name;
+            this.openedAt = openedAt;
+            add(first);
+        }
+
+        void add(StatusChange change) {
+            changes.put(change.orderNumber(), change);
+        }
+    }
+}
@@ -5,11 +5,11 @@ import com.ecommerce.dto.PaymentRequest;
 import com.ecommerce.entity.Order;
 import com.ecommerce.exception.ResourceNotFoundException;
 import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.security.PaymentSignatureVerifier;
 import com.ecommerce.service.OrderService;
 import com.ecommerce.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -24,13 +24,11 @@ public class PaymentServiceImpl implements PaymentService {
     
     private final OrderRepository orderRepository;
     private final OrderService orderService;
+    private final PaymentSignatureVerifier signatureVerifier;
     
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
     
-    @Value("${razorpay.key.secret}")
-    private String razorpayKeySecret;
-    
     @Override
     public Map<String, Object> createPaymentOrder(PaymentRequest paymentRequest) {
         try {
@@ -40,6 +38,10 @@ public class PaymentServiceImpl implements PaymentService {
             // Create a dummy Razorpay order (in a real app, you would call Razorpay API)
             String orderId = "order_" + UUID.randomUUID().toString().substring(0, 10);
             
+            // Remembered so the payment callback can find the order from the gateway id
+            order.setPaymentOrderId(orderId);
+            orderRepository.save(order);
+            
             Map<String, Object> response = new HashMap<>();
             response.put("orderId", orderId);
             response.put("amount", paymentRequest.getAmount().multiply(new java.math.BigDecimal(100)).intValue());
@@ -57,17 +59,22 @@ public class PaymentServiceImpl implements PaymentService {
     
     @Override
     public Map<String, Object> verifyPayment(String orderId, String paymentId, String signature) {
-        // In a real app, you would verify the signature with Razorpay
-        // For this demo, we'll simulate a successful verification
-        
-        // Extract the actual order ID from the Razorpay order ID
-        String actualOrderId = orderId.replace("order_", "");
+        // The gateway signs "orderId|paymentId" with our key secret
+        boolean signatureValid = signatureVerifier.verify(orderId, paymentId, signature);
         
         Map<String, Object> response = new HashMap<>();
-        response.put("signatureValid", true);
-        response.put("orderId", actualOrderId);
+        response.put("signatureValid", signatureValid);
         response.put("paymentId", paymentId);
         
+        if (!signatureValid) {
+            log.warn("Payment signature mismatch for payment {} on gateway order {}", paymentId, orderId);
+            return response;
+        }
+        
+        Order order = orderRepository.findByPaymentOrderId(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found for payment order: " + orderId));
+        response.put("orderId", order.getId());
+        
         log.info("Payment verified: {}", paymentId);
         return response;
     }
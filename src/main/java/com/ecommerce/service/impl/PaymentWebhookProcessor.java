@@ -0,0 +1,194 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.entity.PaymentWebhookEvent;
+import com.ecommerce.repository.PaymentWebhookEventRepository;
+import com.ecommerce.service.OrderService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Works through the webhook inbox. Each poll takes the oldest pending events and splits
+// them over single-threaded lanes by gateway order id, so events for one order are
+// always handled in arrival order while different orders proceed in parallel. A lane
+// applies all its payment captures in one transaction; if that fails, it retries order
+// by order so one bad event doesn't hold back the rest. Events that still fail are held
+// back with exponential backoff (next_attempt_at), so a broken order isn't retried within
+// milliseconds until it runs out of attempts. The next poll starts only once every lane
+// is done, so no event is ever picked up twice.
+//
+// Meant to run on one instance (app.payment.webhook.processor-enabled); order updates
+// are idempotent, but two processors could send the same confirmation email twice.
+@Component
+@Slf4j
+public class PaymentWebhookProcessor {
+
+    private static final Set<String> CAPTURE_EVENTS = Set.of("payment.captured", "order.paid");
+
+    private final PaymentWebhookEventRepository eventRepository;
+    private final OrderService orderService;
+    private final ExecutorService[] lanes;
+
+    @Value("${app.payment.webhook.processor-enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.payment.webhook.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.payment.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    // Delay before the first retry of a failed event; doubles with every further failure
+    @Value("${app.payment.webhook.retry-backoff-ms:10000}")
+    private long retryBackoffMs;
+
+    @Value("${app.payment.webhook.retention-days:30}")
+    private long retentionDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+
+    public PaymentWebhookProcessor(PaymentWebhookEventRepository eventRepository,
+                                   OrderService orderService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.payment.webhook.lanes:4}") int laneCount) {
+        this.eventRepository = eventRepository;
+        this.orderService = orderService;
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("payment-webhook-");
+        threadFactory.setDaemon(true);
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+
+        Gauge.builder("payment.webhook.batch", lastBatchSize, AtomicLong::get)
+                .description("Events picked up by the last inbox poll")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.payment.webhook.poll-interval-ms:500}")
+    public void processPending() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            while (true) {
+                List<PaymentWebhookEvent> batch = eventRepository.findPending(PageRequest.of(0, batchSize));
+                lastBatchSize.set(batch.size());
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                List<List<PaymentWebhookEvent>> byLane = new ArrayList<>(lanes.length);
+                for (int i = 0; i < lanes.length; i++) {
+                    byLane.add(new ArrayList<>());
+                }
+                for (PaymentWebhookEvent event : batch) {
+                    byLane.get(Math.floorMod(Objects.hashCode(event.getPaymentOrderId()), lanes.length)).add(event);
+                }
+
+                List<Future<?>> pending = new ArrayList<>(lanes.length);
+                for (int i = 0; i < lanes.length; i++) {
+                    List<PaymentWebhookEvent> events = byLane.get(i);
+                    if (!events.isEmpty()) {
+                        pending.add(lanes[i].submit(() -> handle(events)));
+                    }
+                }
+                boolean laneFailed = false;
+                for (Future<?> future : pending) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        log.error("Payment webhook lane failed", e.getCause());
+                        laneFailed = true;
+                    }
+                }
+
+                // A failed lane may have left its events pending without a backoff; wait for
+                // the next poll rather than fetching them again straight away
+                if (laneFailed || batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${app.payment.webhook.purge-cron:0 45 3 * * *}")
+    public void purgeFinishedEvents() {
+        int deleted = eventRepository.deleteFinishedBefore(LocalDateTime.now().minusDays(retentionDays));
+        if (deleted > 0) {
+            log.info("Purged {} processed payment webhook events", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    // Runs on a lane; events arrive in id order
+    private void handle(List<PaymentWebhookEvent> events) {
+        // First capture per order wins; later ones for the same order are redundant
+        Map<String, String> captures = new LinkedHashMap<>();
+        Map<String, List<Long>> eventIdsByOrder = new HashMap<>();
+        List<Long> ignored = new ArrayList<>();
+        for (PaymentWebhookEvent event : events) {
+            if (CAPTURE_EVENTS.contains(event.getEventType())
+                    && event.getPaymentOrderId() != null && event.getPaymentId() != null) {
+                captures.putIfAbsent(event.getPaymentOrderId(), event.getPaymentId());
+                eventIdsByOrder.computeIfAbsent(event.getPaymentOrderId(), k -> new ArrayList<>()).add(event.getId());
+            } else {
+                ignored.add(event.getId());
+            }
+        }
+
+        List<Long> processed = new ArrayList<>();
+        if (!captures.isEmpty()) {
+            try {
+                Set<String> matched = orderService.completePayments(captures);
+                eventIdsByOrder.forEach((paymentOrderId, ids) ->
+                        (matched.contains(paymentOrderId) ? processed : ignored).addAll(ids));
+            } catch (RuntimeException e) {
+                log.warn("Batched payment update for {} orders failed, retrying individually", captures.size(), e);
+                captures.forEach((paymentOrderId, paymentId) -> {
+                    List<Long> ids = eventIdsByOrder.get(paymentOrderId);
+                    try {
+                        Set<String> matched = orderService.completePayments(Map.of(paymentOrderId, paymentId));
+                        (matched.isEmpty() ? ignored : processed).addAll(ids);
+                    } catch (RuntimeException ex) {
+                        log.error("Payment update for gateway order {} failed, will retry", paymentOrderId, ex);
+                        eventRepository.markAttemptFailed(ids, maxAttempts, retryBackoffMs);
+                    }
+                });
+            }
+        }
+
+        // Unknown event types and orders we have no record of are kept, but need no action
+        LocalDateTime now = LocalDateTime.now();
+        if (!processed.isEmpty()) {
+            eventRepository.markDone(processed, PaymentWebhookEvent.Status.PROCESSED, now);
+        }
+        if (!ignored.isEmpty()) {
+            eventRepository.markDone(ignored, PaymentWebhookEvent.Status.IGNORED, now);
+        }
+    }
+}
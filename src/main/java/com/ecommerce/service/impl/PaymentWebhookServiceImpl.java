@@ -0,0 +1,104 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.UnauthorizedException;
+import com.ecommerce.repository.PaymentWebhookEventRepository;
+import com.ecommerce.security.PaymentSignatureVerifier;
+import com.ecommerce.service.PaymentWebhookService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Receiving side of the gateway webhook: check the signature, pull out the few fields
+// needed for routing, append to the inbox and return. Everything else happens in
+// PaymentWebhookProcessor, so the gateway gets its acknowledgement in one insert.
+@Service
+@Slf4j
+public class PaymentWebhookServiceImpl implements PaymentWebhookService {
+
+    // Column sizes in payment_webhook_events; payload is a TEXT column
+    private static final int MAX_FIELD_LENGTH = 64;
+    private static final int MAX_PAYLOAD_BYTES = 65_535;
+
+    private final PaymentWebhookEventRepository eventRepository;
+    private final ObjectMapper objectMapper;
+
+    // Webhooks are signed with their own secret, not the API key secret
+    private final PaymentSignatureVerifier webhookSignatureVerifier;
+
+    public PaymentWebhookServiceImpl(PaymentWebhookEventRepository eventRepository,
+                                     ObjectMapper objectMapper,
+                                     @Value("${razorpay.webhook.secret}") String webhookSecret) {
+        this.eventRepository = eventRepository;
+        this.objectMapper = objectMapper;
+        this.webhookSignatureVerifier = new PaymentSignatureVerifier(webhookSecret);
+    }
+
+    @Override
+    public boolean receiveEvent(byte[] body, String signature, String eventId) {
+        if (!webhookSignatureVerifier.verify(body, signature)) {
+            throw new UnauthorizedException("Invalid webhook signature");
+        }
+
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new BadRequestException("Malformed webhook payload");
+        }
+
+        String eventType = text(root, "event");
+        if (eventType == null) {
+            throw new BadRequestException("Webhook event type is missing");
+        }
+        JsonNode payment = root.path("payload").path("payment").path("entity");
+        String paymentId = text(payment, "id");
+        String paymentOrderId = text(payment, "order_id");
+        if (paymentOrderId == null) {
+            paymentOrderId = text(root.path("payload").path("order").path("entity"), "id");
+        }
+
+        // The gateway sends a delivery-independent id in a header; without it, an event is
+        // identified by its type and the payment (or order) it is about
+        if (!StringUtils.hasText(eventId)) {
+            String subject = paymentId != null ? paymentId : paymentOrderId;
+            if (subject == null) {
+                throw new BadRequestException("Webhook event has no id");
+            }
+            eventId = eventType + ":" + subject;
+        }
+        // Checked here because the inbox insert ignores errors and would truncate instead
+        if (eventId.length() > MAX_FIELD_LENGTH) {
+            throw new BadRequestException("Webhook event id is too long");
+        }
+        if (eventType.length() > MAX_FIELD_LENGTH || length(paymentOrderId) > MAX_FIELD_LENGTH
+                || length(paymentId) > MAX_FIELD_LENGTH) {
+            throw new BadRequestException("Webhook event field is too long");
+        }
+        if (body.length > MAX_PAYLOAD_BYTES) {
+            throw new BadRequestException("Webhook payload is too large");
+        }
+
+        boolean stored = eventRepository.insertIfAbsent(eventId, eventType, paymentOrderId, paymentId,
+                new String(body, StandardCharsets.UTF_8)) == 1;
+        if (!stored) {
+            log.debug("Duplicate webhook event {} ignored", eventId);
+        }
+        return stored;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && value.isTextual() && !value.asText().isEmpty() ? value.asText() : null;
+    }
+}
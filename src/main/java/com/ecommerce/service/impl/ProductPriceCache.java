@@ -0,0 +1,149 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.CartSummaryDto;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Price snapshots of products that are sitting in carts, so rendering a cart summary
+// doesn't reload every product. Entries are dropped when a product's price changes
+// here, and expire after a TTL to pick up changes made by other instances.
+@Component
+@RequiredArgsConstructor
+public class ProductPriceCache {
+
+    private final ProductRepository productRepository;
+
+    @Value("${app.cart.price-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${app.cart.price-cache.max-size:50000}")
+    private int maxSize;
+
+    private final Map<Long, PriceSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    // Per product, the version its price last changed at here. A row read before that can
+    // still price a request, but is not cached, so a load that overlaps a price change can't
+    // put the old price back after the eviction. One entry per product ever repriced.
+    private final Map<Long, Long> repricedAt = new ConcurrentHashMap<>();
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    // Taken before reading product rows, and passed to refresh with them
+    public long loadStamp() {
+        return version.get();
+    }
+
+    // Cached snapshots for the given products, loading all misses with one query.
+    // Products that no longer exist are left out.
+    public Map<Long, PriceSnapshot> getSnapshots(Collection<Long> productIds) {
+        long now = System.currentTimeMillis();
+        Map<Long, PriceSnapshot> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+
+        for (Long productId : productIds) {
+            PriceSnapshot snapshot = snapshots.get(productId);
+            if (snapshot != null && snapshot.loadedAt() + ttlMs > now) {
+                result.put(productId, snapshot);
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadStamp = loadStamp();
+            productRepository.findAllById(missing)
+                    .forEach(product -> result.put(product.getId(), refresh(product, loadStamp)));
+        }
+        return result;
+    }
+
+    // Snapshot from a product row that was just loaded anyway, read after loadStamp was
+    // taken. Only a real price change bumps the version, so an unchanged product keeps
+    // its snapshot.
+    public PriceSnapshot refresh(Product product, long loadStamp) {
+        long now = System.currentTimeMillis();
+        PriceSnapshot stored = snapshots.compute(product.getId(), (productId, cached) -> {
+            if (repricedAt.getOrDefault(productId, 0L) > loadStamp) {
+                return cached;
+            }
+            if (cached != null && cached.hasSamePrice(product)) {
+                return new PriceSnapshot(productId, cached.price(), cached.discountPrice(), cached.version(), now);
+            }
+            return new PriceSnapshot(productId, product.getPrice(), product.getDiscountPrice(), version.incrementAndGet(), now);
+        });
+
+        if (snapshots.size() > maxSize) {
+            // Only carts keep entries alive, so starting over is cheap and rare
+            snapshots.clear();
+        }
+        if (stored != null && stored.hasSamePrice(product)) {
+            return stored;
+        }
+        // Read before the latest price change committed: priced as read, but not cached
+        return new PriceSnapshot(product.getId(), product.getPrice(), product.getDiscountPrice(), version.get(), now);
+    }
+
+    // Drops a product's snapshot once the surrounding transaction commits. Loads that
+    // started before then may still hold the old row; refresh won't cache what they read.
+    public void invalidate(Long productId) {
+        TransactionCallbacks.afterCommit(() -> evict(productId));
+    }
+
+    // The single place cart totals are computed, used by the cart summary and by checkout.
+    // Lines whose product has no snapshot are skipped.
+    public CartSummaryDto summarize(Map<Long, Integer> quantities, Map<Long, PriceSnapshot> prices) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        BigDecimal total = BigDecimal.ZERO;
+        int itemCount = 0;
+
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            PriceSnapshot snapshot = prices.get(line.getKey());
+            if (snapshot == null) {
+                continue;
+            }
+            BigDecimal quantity = BigDecimal.valueOf(line.getValue());
+            subtotal = subtotal.add(snapshot.price().multiply(quantity));
+            total = total.add(snapshot.effectivePrice().multiply(quantity));
+            itemCount += line.getValue();
+        }
+
+        return new CartSummaryDto(itemCount, subtotal, subtotal.subtract(total), total, version.get());
+    }
+
+    // compareTo, so 10.0 and 10.00 count as the same price
+    static boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+
+    // Inside the compute on the product's entry, so a load can't slip its store in between
+    private void evict(Long productId) {
+        snapshots.compute(productId, (id, cached) -> {
+            repricedAt.put(id, version.incrementAndGet());
+            return null;
+        });
+    }
+
+    public record PriceSnapshot(Long productId, BigDecimal price, BigDecimal discountPrice, long version, long loadedAt) {
+
+        public BigDecimal effectivePrice() {
+            return discountPrice != null ? discountPrice : price;
+        }
+
+        boolean hasSamePrice(Product product) {
+            return sameAmount(price, product.getPrice()) && sameAmount(discountPrice, product.getDiscountPrice());
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.ecommerce.service.impl;
 
 import com.ecommerce.dto.ProductCreateRequest;
 import com.ecommerce.dto.ProductDto;
+import com.ecommerce.dto.UserSummary;
 import com.ecommerce.entity.Product;
 import com.ecommerce.entity.User;
 import com.ecommerce.exception.ResourceNotFoundException;
@@ -10,19 +11,25 @@ import com.ecommerce.exception.UnauthorizedException;
 import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.security.UserDetailsImpl;
 import com.ecommerce.service.ProductService;
+import com.ecommerce.service.TrendingService;
 import com.ecommerce.service.UserService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,7 +38,9 @@ public class ProductServiceImpl implements ProductService {
     
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final TrendingService trendingService;
     private final ModelMapper modelMapper;
+    private final ProductPriceCache priceCache;
     
     @Override
     public Page<ProductDto> getAllProducts(Pageable pageable) {
@@ -44,6 +53,7 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         
+        trendingService.recordView(product.getId());
         return modelMapper.map(product, ProductDto.class);
     }
     
@@ -63,7 +73,7 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     public ProductDto createProduct(ProductCreateRequest productRequest) {
         UserDetailsImpl userDetails = getCurrentUserDetails();
-        User seller = userService.findById(userDetails.getId());
+        UserSummary seller = userService.findSummaryById(userDetails.getId());
         
         if (seller.getRole() != User.Role.SELLER) {
             throw new UnauthorizedException("Only sellers can create products");
@@ -79,7 +89,7 @@ public class ProductServiceImpl implements ProductService {
         product.setImageUrl(productRequest.getImageUrl());
         product.setFeatured(productRequest.isFeatured());
         product.setUpcoming(productRequest.isUpcoming());
-        product.setUser(seller);
+        product.setUser(userService.getReferenceById(seller.getId()));
         
         Product savedProduct = productRepository.save(product);
         return modelMapper.map(savedProduct, ProductDto.class);
@@ -97,6 +107,9 @@ public class ProductServiceImpl implements ProductService {
             throw new UnauthorizedException("You don't have permission to update this product");
         }
         
+        boolean priceChanged = !ProductPriceCache.sameAmount(product.getPrice(), productRequest.getPrice())
+                || !ProductPriceCache.sameAmount(product.getDiscountPrice(), productRequest.getDiscountPrice());
+        
         product.setName(productRequest.getName());
         product.setDescription(productRequest.getDescription());
         product.setPrice(productRequest.getPrice());
@@ -107,6 +120,11 @@ public class ProductServiceImpl implements ProductService {
         product.setFeatured(productRequest.isFeatured());
         product.setUpcoming(productRequest.isUpcoming());
         
+        // Cart totals only need recomputing when the price actually moved
+        if (priceChanged) {
+            priceCache.invalidate(id);
+        }
+        
         Product updatedProduct = productRepository.save(product);
         return modelMapper.map(updatedProduct, ProductDto.class);
     }
@@ -124,12 +142,13 @@ public class ProductServiceImpl implements ProductService {
         }
         
         productRepository.delete(product);
+        priceCache.invalidate(id);
     }
     
     @Override
     public Page<ProductDto> getSellerProducts(Pageable pageable) {
         UserDetailsImpl userDetails = getCurrentUserDetails();
-        User seller = userService.findById(userDetails.getId());
+        User seller = userService.getReferenceById(userDetails.getId());
         
         return productRepository.findByUser(seller, pageable)
                 .map(product -> modelMapper.map(product, ProductDto.class));
@@ -156,6 +175,50 @@ public class ProductServiceImpl implements ProductService {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public List<ProductDto> getTrendingProducts(int limit) {
+        List<Long> trendingIds = trendingService.getTrendingProductIds(limit);
+        
+        // Nothing has been scored yet (e.g. right after startup), fall back to the newest products
+        if (trendingIds.isEmpty()) {
+            return getLatestProducts();
+        }
+        
+        return loadInOrder(trendingIds);
+    }
+    
+    @Override
+    public Page<ProductDto> getTrendingProducts(Pageable pageable) {
+        int tracked = trendingService.getTrackedProductCount();
+        if (tracked == 0) {
+            Pageable byNewest = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                    Sort.by("createdAt").descending());
+            return getAllProducts(byNewest);
+        }
+        
+        long offset = pageable.getOffset();
+        if (offset >= tracked) {
+            return new PageImpl<>(List.of(), pageable, tracked);
+        }
+        
+        List<Long> rankedIds = trendingService.getTrendingProductIds((int) offset + pageable.getPageSize());
+        List<Long> pageIds = rankedIds.subList((int) Math.min(offset, rankedIds.size()), rankedIds.size());
+        
+        return new PageImpl<>(loadInOrder(pageIds), pageable, tracked);
+    }
+    
+    private List<ProductDto> loadInOrder(List<Long> productIds) {
+        Map<Long, Product> productsById = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        // Products deleted since they were scored are simply skipped
+        return productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(product -> modelMapper.map(product, ProductDto.class))
+                .collect(Collectors.toList());
+    }
+    
     private UserDetailsImpl getCurrentUserDetails() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         return (UserDetailsImpl) authentication.getPrincipal();
@@ -0,0 +1,94 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Recounts every product's rating histogram from the reviews table. addReview keeps the
+// histograms current on its own; this repairs drift and fills them in for reviews that
+// predate the columns. The product id range is split into chunks, each recounted by a
+// single UPDATE ... JOIN in its own transaction, with a few chunks running at once.
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RatingHistogramRebuildJob {
+
+    private final ProductRepository productRepository;
+
+    @Value("${app.reviews.histogram.rebuild-on-startup:true}")
+    private boolean rebuildOnStartup;
+
+    @Value("${app.reviews.histogram.rebuild-chunk-size:1000}")
+    private long chunkSize;
+
+    @Value("${app.reviews.histogram.rebuild-threads:4}")
+    private int threads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            CompletableFuture.runAsync(this::rebuildAll);
+        }
+    }
+
+    @Scheduled(cron = "${app.reviews.histogram.rebuild-cron:0 0 4 * * SUN}")
+    public void rebuildAll() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("rating-rebuild-");
+        threadFactory.setDaemon(true);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), threadFactory);
+        try {
+            List<Object[]> range = productRepository.findIdRange();
+            if (range.isEmpty() || range.get(0)[0] == null) {
+                return;
+            }
+            long minId = (Long) range.get(0)[0];
+            long maxId = (Long) range.get(0)[1];
+
+            long started = System.currentTimeMillis();
+            AtomicInteger updated = new AtomicInteger();
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+                long from = fromId;
+                long to = Math.min(maxId, fromId + chunkSize - 1);
+                chunks.add(executor.submit(() -> updated.addAndGet(productRepository.rebuildRatingHistograms(from, to))));
+            }
+
+            int failed = 0;
+            for (Future<?> chunk : chunks) {
+                try {
+                    chunk.get();
+                } catch (ExecutionException e) {
+                    // A failed chunk keeps its old counts until the next run; the rest still go through
+                    failed++;
+                    log.warn("Rating histogram rebuild chunk failed: {}", e.getCause().getMessage());
+                }
+            }
+
+            log.info("Rebuilt rating histograms for {} products in {} ms ({} of {} chunks failed)",
+                    updated.get(), System.currentTimeMillis() - started, failed, chunks.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.entity.RefreshToken;
+import com.ecommerce.entity.User;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.repository.RefreshTokenRepository;
+import com.ecommerce.security.JwtTokenProvider;
+import com.ecommerce.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtTokenProvider tokenProvider;
+
+    @Override
+    @Transactional
+    public String createRefreshToken(User user) {
+        String tokenId = UUID.randomUUID().toString();
+
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setTokenId(tokenId);
+        refreshToken.setUser(user);
+        refreshToken.setExpiryDate(LocalDateTime.now().plusNanos(tokenProvider.getRefreshExpirationInMs() * 1_000_000));
+        refreshTokenRepository.save(refreshToken);
+
+        return tokenProvider.generateRefreshToken(user, tokenId);
+    }
+
+    // Rotation has to write anyway, so the conditional UPDATE doubles as the revocation
+    // check: a successful rotation is one UPDATE plus the INSERT of its replacement, and
+    // only a refused token pays for a second lookup.
+    @Override
+    @Transactional(dontRollbackOn = BadRequestException.class)
+    public String rotateRefreshToken(Claims claims, User user) {
+        // Refresh tokens issued before rotation carry no jti and were never stored; they
+        // are refused, so their holders sign in again once
+        String tokenId = claims.getId();
+        if (tokenId == null) {
+            throw new BadRequestException("Invalid refresh token");
+        }
+
+        if (refreshTokenRepository.revokeIfActive(tokenId) == 0) {
+            if (refreshTokenRepository.existsByTokenIdAndRevokedTrue(tokenId)) {
+                // A token that was already rotated out came back: assume it leaked and end every session
+                revokeAllForUser(user.getId());
+            }
+            throw new BadRequestException("Refresh token has been revoked");
+        }
+
+        return createRefreshToken(user);
+    }
+
+    @Override
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    @Scheduled(cron = "${app.jwt.refresh-token.purge-cron:0 30 3 * * *}")
+    @Transactional
+    public void purgeExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh tokens", deleted);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ReviewImportResultDto;
+import com.ecommerce.dto.ReviewImportRow;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ReviewRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.UserDetailsImpl;
+import com.ecommerce.service.ReviewImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Streams an NDJSON upload in chunks: each chunk resolves its users, products and
+// existing reviews with one query apiece, then inserts the valid rows as a single JDBC
+// batch in its own transaction. Bad rows are reported and skipped; a chunk that fails
+// to insert is retried row by row, so only the offending rows are reported. Reviews can
+// only be attributed to customers who bought the product. Rating histograms of the
+// touched products are recounted once, at the end.
+@Service
+@Slf4j
+public class ReviewImportServiceImpl implements ReviewImportService {
+
+    private static final String INSERT_REVIEW =
+            "INSERT INTO reviews (user_id, product_id, rating, comment, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final int MAX_COMMENT_LENGTH = 1000;
+
+    private final ReviewRepository reviewRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reviews.import.batch-size:500}")
+    private int batchSize;
+
+    public ReviewImportServiceImpl(ReviewRepository reviewRepository,
+                                   ProductRepository productRepository,
+                                   UserRepository userRepository,
+                                   OrderItemRepository orderItemRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.reviewRepository = reviewRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public ReviewImportResultDto importReviews(InputStream ndjson) throws IOException {
+        Long sellerId = getCurrentUserId();
+        ReviewImportResultDto result = new ReviewImportResultDto();
+        Set<Long> touchedProducts = new HashSet<>();
+        List<ParsedRow> chunk = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setTotalRows(result.getTotalRows() + 1);
+
+                ParsedRow row = parse(lineNumber, line, result);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == batchSize) {
+                    importChunk(chunk, sellerId, result, touchedProducts);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, sellerId, result, touchedProducts);
+        }
+
+        // One recount per product for the whole file, rather than a shift per inserted row
+        List<Long> productIds = new ArrayList<>(touchedProducts);
+        for (int from = 0; from < productIds.size(); from += batchSize) {
+            productRepository.rebuildRatingHistogramsFor(
+                    productIds.subList(from, Math.min(from + batchSize, productIds.size())));
+        }
+
+        log.info("Review import by seller {}: {} rows, {} imported, {} duplicates, {} failed",
+                sellerId, result.getTotalRows(), result.getImported(), result.getDuplicates(), result.getFailed());
+        return result;
+    }
+
+    private ParsedRow parse(int lineNumber, String line, ReviewImportResultDto result) {
+        ReviewImportRow row;
+        try {
+            row = objectMapper.readValue(line, ReviewImportRow.class);
+        } catch (IOException e) {
+            fail(result, lineNumber, "Malformed JSON");
+            return null;
+        }
+
+        if (row.getProductId() == null) {
+            fail(result, lineNumber, "productId is required");
+        } else if (row.getUserEmail() == null || row.getUserEmail().isBlank()) {
+            fail(result, lineNumber, "userEmail is required");
+        } else if (row.getRating() == null || row.getRating() < 1 || row.getRating() > 5) {
+            fail(result, lineNumber, "rating must be between 1 and 5");
+        } else if (row.getComment() != null && row.getComment().length() > MAX_COMMENT_LENGTH) {
+            fail(result, lineNumber, "comment is longer than " + MAX_COMMENT_LENGTH + " characters");
+        } else if (row.getCreatedAt() != null && row.getCreatedAt().isAfter(LocalDateTime.now())) {
+            fail(result, lineNumber, "createdAt is in the future");
+        } else {
+            return new ParsedRow(lineNumber, row, row.getUserEmail().trim().toLowerCase(Locale.ROOT));
+        }
+        return null;
+    }
+
+    private void importChunk(List<ParsedRow> chunk, Long sellerId, ReviewImportResultDto result, Set<Long> touchedProducts) {
+        Set<String> emails = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (ParsedRow row : chunk) {
+            emails.add(row.email());
+            productIds.add(row.data().getProductId());
+        }
+
+        Map<String, Long> userIds = new HashMap<>();
+        for (Object[] user : userRepository.findIdsByEmailIn(emails)) {
+            userIds.put(((String) user[0]).toLowerCase(Locale.ROOT), (Long) user[1]);
+        }
+        Map<Long, Long> sellerIds = new HashMap<>();
+        for (Object[] product : productRepository.findSellerIdsByIdIn(productIds)) {
+            sellerIds.put((Long) product[0], (Long) product[1]);
+        }
+        Set<List<Long>> reviewed = new HashSet<>();
+        Set<List<Long>> purchased = new HashSet<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] pair : reviewRepository.findReviewedPairs(userIds.values(), productIds)) {
+                reviewed.add(List.of((Long) pair[0], (Long) pair[1]));
+            }
+            for (Object[] pair : orderItemRepository.findPurchasedPairs(userIds.values(), productIds)) {
+                purchased.add(List.of((Long) pair[0], (Long) pair[1]));
+            }
+        }
+
+        List<Object[]> batch = new ArrayList<>(chunk.size());
+        List<ParsedRow> batchRows = new ArrayList<>(chunk.size());
+        LocalDateTime now = LocalDateTime.now();
+        for (ParsedRow row : chunk) {
+            Long productId = row.data().getProductId();
+            Long userId = userIds.get(row.email());
+            Long productSeller = sellerIds.get(productId);
+
+            if (productSeller == null) {
+                fail(result, row.line(), "Product " + productId + " not found");
+            } else if (!productSeller.equals(sellerId)) {
+                fail(result, row.line(), "Product " + productId + " does not belong to you");
+            } else if (userId == null) {
+                fail(result, row.line(), "No user with email " + row.data().getUserEmail());
+            } else if (!purchased.contains(List.of(userId, productId))) {
+                fail(result, row.line(), row.data().getUserEmail() + " has not bought product " + productId);
+            } else if (!reviewed.add(List.of(userId, productId))) {
+                // Already in the database, or earlier in this chunk
+                result.setDuplicates(result.getDuplicates() + 1);
+            } else {
+                LocalDateTime createdAt = row.data().getCreatedAt() != null ? row.data().getCreatedAt() : now;
+                batch.add(new Object[]{userId, productId, row.data().getRating(), row.data().getComment(),
+                        Timestamp.valueOf(createdAt)});
+                batchRows.add(row);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_REVIEW, batch));
+            result.setImported(result.getImported() + batch.size());
+            batchRows.forEach(row -> touchedProducts.add(row.data().getProductId()));
+        } catch (RuntimeException e) {
+            // The batch rolled back as a whole; find the rows that caused it one insert at a time
+            log.warn("Review import chunk of {} rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                Object[] args = batch.get(i);
+                ParsedRow row = batchRows.get(i);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_REVIEW, args));
+                    result.setImported(result.getImported() + 1);
+                    touchedProducts.add(row.data().getProductId());
+                } catch (DuplicateKeyException ex) {
+                    // Reviewed since the chunk was checked, e.g. by the customer themselves
+                    result.setDuplicates(result.getDuplicates() + 1);
+                } catch (RuntimeException ex) {
+                    fail(result, row.line(), "Insert failed: " + NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+                }
+            }
+        }
+    }
+
+    private static void fail(ReviewImportResultDto result, int line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ReviewImportResultDto.RowError(line, message));
+        }
+    }
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
+    }
+
+    private record ParsedRow(int line, ReviewImportRow data, String email) {
+    }
+}
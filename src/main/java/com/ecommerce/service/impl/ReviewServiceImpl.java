@@ -2,7 +2,9 @@
 package com.ecommerce.service.impl;
 
 import com.ecommerce.dto.ReviewDto;
+import com.ecommerce.dto.ReviewPageDto;
 import com.ecommerce.dto.ReviewRequest;
+import com.ecommerce.dto.UserDto;
 import com.ecommerce.entity.Product;
 import com.ecommerce.entity.Review;
 import com.ecommerce.entity.User;
@@ -13,16 +15,23 @@ import com.ecommerce.repository.ReviewRepository;
 import com.ecommerce.security.UserDetailsImpl;
 import com.ecommerce.service.ReviewService;
 import com.ecommerce.service.UserService;
+import com.ecommerce.util.SortedLongSet;
+import com.ecommerce.util.TransactionCallbacks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
@@ -31,7 +40,28 @@ public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserService userService;
-    private final ModelMapper modelMapper;
+    
+    // Cursor used for the first page: newer than any review can be
+    private static final LocalDateTime SEEK_START_CREATED_AT = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    
+    @Value("${app.reviews.check-cache.ttl-ms:30000}")
+    private long checkCacheTtlMs;
+    
+    @Value("${app.reviews.check-cache.max-size:20000}")
+    private int checkCacheMaxSize;
+    
+    // Per user: the products already asked about and which of them were reviewed, so an
+    // order history page that re-renders answers from memory
+    private final Map<Long, CachedReviewCheck> checkCache = new ConcurrentHashMap<>();
+    
+    // Last committed review per user, recorded inside the compute on that user's entry;
+    // answers read from the database are only cached if the same user committed no review
+    // meanwhile. Reviews older than the TTL can be forgotten: whatever a read that old
+    // stores has already expired.
+    private final Map<Long, ReviewChange> reviewChanges = new ConcurrentHashMap<>();
+    
+    // Orders reads against reviews; only ever compared for the same user
+    private final AtomicLong reviewSequence = new AtomicLong();
     
     @Override
     @Transactional
@@ -40,12 +70,14 @@ public class ReviewServiceImpl implements ReviewService {
         Product product = getProduct(reviewRequest.getProductId());
         
         // Check if the user has already reviewed this product
-        Optional<Review> existingReview = reviewRepository.findByUserIdAndProductId(currentUser.getId(), product.getId());
+        Optional<Review> existingReview = reviewRepository.findByUserIdAndProductIdForUpdate(currentUser.getId(), product.getId());
         
         Review review;
+        int previousRating = 0;
         if (existingReview.isPresent()) {
             // Update existing review
             review = existingReview.get();
+            previousRating = review.getRating();
             review.setRating(reviewRequest.getRating());
             review.setComment(reviewRequest.getComment());
         } else {
@@ -58,16 +90,81 @@ public class ReviewServiceImpl implements ReviewService {
         }
         
         Review savedReview = reviewRepository.save(review);
+        
+        // Keep the product's histogram in step within the same transaction; an edit moves
+        // the vote from the old bucket to the new one
+        if (previousRating != savedReview.getRating()) {
+            productRepository.shiftRating(product.getId(), savedReview.getRating(), previousRating);
+        }
+        
+        Long userId = currentUser.getId();
+        Long productId = product.getId();
+        TransactionCallbacks.afterCommit(() -> {
+            long now = System.currentTimeMillis();
+            if (reviewChanges.size() >= checkCacheMaxSize) {
+                reviewChanges.values().removeIf(recorded -> recorded.at() + checkCacheTtlMs < now);
+            }
+            checkCache.compute(userId, (id, cached) -> {
+                reviewChanges.put(id, new ReviewChange(reviewSequence.incrementAndGet(), now));
+                return cached == null ? null : new CachedReviewCheck(
+                        cached.checked().with(productId), cached.reviewed().with(productId), cached.expiresAt());
+            });
+        });
         return mapToReviewDto(savedReview);
     }
     
     @Override
     public Page<ReviewDto> getProductReviews(Long productId, Pageable pageable) {
-        // Verify that the product exists
-        getProduct(productId);
-        
-        return reviewRepository.findByProductId(productId, pageable)
+        Page<ReviewDto> reviews = reviewRepository.findByProductIdWithUser(productId, pageable)
                 .map(this::mapToReviewDto);
+        
+        // Only an empty page has to tell "no reviews" apart from "no such product"
+        if (reviews.isEmpty() && !productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        return reviews;
+    }
+    
+    @Override
+    public ReviewPageDto getProductReviewPage(Long productId, String cursor, int size) {
+        LocalDateTime beforeCreatedAt = SEEK_START_CREATED_AT;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                beforeCreatedAt = LocalDateTime.parse(parts[0]);
+                beforeId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new BadRequestException("Invalid review cursor");
+            }
+        }
+        
+        // One extra row tells whether there is a next page
+        List<Object[]> rows = reviewRepository.findReviewPageBefore(productId, beforeCreatedAt, beforeId,
+                PageRequest.of(0, size + 1));
+        if (rows.isEmpty()) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        
+        List<ReviewDto> reviews = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[0] == null) {
+                continue;
+            }
+            UserDto author = new UserDto();
+            author.setId((Long) row[4]);
+            author.setName((String) row[5]);
+            reviews.add(new ReviewDto((Long) row[0], productId, author, (Integer) row[1], (String) row[2], (LocalDateTime) row[3]));
+        }
+        
+        String nextCursor = null;
+        if (reviews.size() > size) {
+            reviews = new ArrayList<>(reviews.subList(0, size));
+            ReviewDto last = reviews.get(size - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new ReviewPageDto(reviews, nextCursor);
     }
     
     @Override
@@ -85,14 +182,74 @@ public class ReviewServiceImpl implements ReviewService {
         return reviewRepository.existsByUserIdAndProductId(userDetails.getId(), productId);
     }
     
+    @Override
+    public Set<Long> findReviewedProducts(List<Long> productIds) {
+        Long userId = getCurrentUserDetails().getId();
+        long now = System.currentTimeMillis();
+        
+        long loadStamp = reviewSequence.get();
+        CachedReviewCheck cached = checkCache.get(userId);
+        if (cached == null || cached.expiresAt() < now) {
+            cached = new CachedReviewCheck(SortedLongSet.empty(), SortedLongSet.empty(), now + checkCacheTtlMs);
+        }
+        
+        // Only products this user hasn't been asked about yet go to the database, in one IN query
+        Set<Long> unchecked = new HashSet<>();
+        for (Long productId : productIds) {
+            if (!cached.checked().contains(productId)) {
+                unchecked.add(productId);
+            }
+        }
+        if (!unchecked.isEmpty()) {
+            List<Long> found = reviewRepository.findReviewedProductIds(userId, unchecked);
+            cached = new CachedReviewCheck(
+                    cached.checked().withAll(unchecked.stream().mapToLong(Long::longValue).toArray()),
+                    cached.reviewed().withAll(found.stream().mapToLong(Long::longValue).toArray()),
+                    cached.expiresAt());
+            cacheReviewCheck(userId, cached, loadStamp, now);
+        }
+        
+        // Keeps the order of the request
+        Set<Long> reviewed = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            if (cached.reviewed().contains(productId)) {
+                reviewed.add(productId);
+            }
+        }
+        return reviewed;
+    }
+    
+    private void cacheReviewCheck(Long userId, CachedReviewCheck entry, long loadStamp, long now) {
+        if (checkCacheTtlMs <= 0) {
+            return;
+        }
+        if (checkCache.size() >= checkCacheMaxSize) {
+            checkCache.values().removeIf(cached -> cached.expiresAt() < now);
+            if (checkCache.size() >= checkCacheMaxSize) {
+                checkCache.clear();
+            }
+        }
+        checkCache.compute(userId, (id, current) -> {
+            ReviewChange change = reviewChanges.get(id);
+            return change != null && change.sequence() > loadStamp ? current : entry;
+        });
+    }
+    
+    // Authors are shown by name only; their contact details stay out of public review pages
     private ReviewDto mapToReviewDto(Review review) {
-        return modelMapper.map(review, ReviewDto.class);
+        UserDto author = new UserDto();
+        author.setId(review.getUser().getId());
+        author.setName(review.getUser().getName());
+        
+        return new ReviewDto(review.getId(), review.getProduct().getId(), author,
+                review.getRating(), review.getComment(), review.getCreatedAt());
     }
     
+    // The current user is only needed as a foreign key here, so skip loading the row
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return userService.findById(userDetails.getId());
+        return userService.getReferenceById(userDetails.getId());
     }
     
     private UserDetailsImpl getCurrentUserDetails() {
@@ -104,4 +261,10 @@ public class ReviewServiceImpl implements ReviewService {
         return productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
     }
+    
+    private record CachedReviewCheck(SortedLongSet checked, SortedLongSet reviewed, long expiresAt) {
+    }
+    
+    private record ReviewChange(long sequence, long at) {
+    }
 }
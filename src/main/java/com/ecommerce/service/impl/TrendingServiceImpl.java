@@ -0,0 +1,183 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.service.TrendingService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@Slf4j
+public class TrendingServiceImpl implements TrendingService {
+
+    @Value("${app.trending.half-life-minutes:360}")
+    private long halfLifeMinutes;
+
+    @Value("${app.trending.weight.view:1.0}")
+    private double viewWeight;
+
+    @Value("${app.trending.weight.cart:3.0}")
+    private double cartWeight;
+
+    @Value("${app.trending.weight.wishlist:2.0}")
+    private double wishlistWeight;
+
+    @Value("${app.trending.weight.order:5.0}")
+    private double orderWeight;
+
+    @Value("${app.trending.min-score:0.01}")
+    private double minScore;
+
+    // Scores are kept in "forward decay" form: every event counts as w * e^((t - epoch) / tau),
+    // so older events never have to be touched. Each product stores the log of its sum; in
+    // log space the value only grows linearly with time, so it never needs rescaling and an
+    // event is a single CAS on that product's cell. Nothing is shared between products, and
+    // the eviction sweep only ever touches the cells it evicts.
+    private final Map<Long, AtomicLong> scores = new ConcurrentHashMap<>();
+
+    // A cell with no events yet, and one the sweep has evicted; events that find an evicted
+    // cell start a fresh one
+    private static final long EMPTY = Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+    private static final long EVICTED = Double.doubleToRawLongBits(Double.NaN);
+
+    private final long epochMillis = System.currentTimeMillis();
+
+    private double decayPerMilli;
+
+    @PostConstruct
+    void init() {
+        decayPerMilli = Math.log(2) / (halfLifeMinutes * 60_000.0);
+    }
+
+    @Override
+    public void recordView(Long productId) {
+        record(productId, viewWeight);
+    }
+
+    @Override
+    public void recordCartAdd(Long productId, int quantity) {
+        record(productId, cartWeight * Math.max(quantity, 1));
+    }
+
+    @Override
+    public void recordWishlistAdd(Long productId) {
+        record(productId, wishlistWeight);
+    }
+
+    @Override
+    public void recordOrder(Long productId, int quantity) {
+        record(productId, orderWeight * Math.max(quantity, 1));
+    }
+
+    @Override
+    public double getScore(Long productId) {
+        AtomicLong cell = scores.get(productId);
+        if (cell == null) {
+            return 0.0;
+        }
+        long current = cell.get();
+        if (current == EVICTED) {
+            return 0.0;
+        }
+        return Math.exp(Double.longBitsToDouble(current) - elapsedDecay(System.currentTimeMillis()));
+    }
+
+    @Override
+    public List<Long> getTrendingProductIds(int limit) {
+        if (limit <= 0 || scores.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // Stored values rank identically to decayed scores, since they share the same epoch
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(
+                Math.min(limit, scores.size()) + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Long, AtomicLong> entry : scores.entrySet()) {
+            long current = entry.getValue().get();
+            if (current == EVICTED || current == EMPTY) {
+                continue;
+            }
+            double score = Double.longBitsToDouble(current);
+            if (top.size() < limit) {
+                top.offer(Map.entry(entry.getKey(), score));
+            } else if (score > top.peek().getValue()) {
+                top.poll();
+                top.offer(Map.entry(entry.getKey(), score));
+            }
+        }
+
+        List<Long> productIds = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            productIds.add(top.poll().getKey());
+        }
+        Collections.reverse(productIds);
+        return productIds;
+    }
+
+    @Override
+    public int getTrackedProductCount() {
+        return scores.size();
+    }
+
+    // Drops products whose score has decayed below the minimum. A cell is only evicted by
+    // a CAS from the value the sweep read, so a product that just got an event stays, and
+    // an event racing the eviction retries on a fresh cell instead of being lost.
+    @Scheduled(fixedDelayString = "${app.trending.evict-interval-ms:600000}")
+    public void evictDecayed() {
+        double minStored = Math.log(minScore) + elapsedDecay(System.currentTimeMillis());
+        int evicted = 0;
+        for (Map.Entry<Long, AtomicLong> entry : scores.entrySet()) {
+            AtomicLong cell = entry.getValue();
+            long current = cell.get();
+            if (current != EVICTED && Double.longBitsToDouble(current) < minStored
+                    && cell.compareAndSet(current, EVICTED)) {
+                scores.remove(entry.getKey(), cell);
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            log.debug("Trending sweep evicted {} products, {} still tracked", evicted, scores.size());
+        }
+    }
+
+    private void record(Long productId, double weight) {
+        if (productId == null || weight <= 0) {
+            return;
+        }
+        double logWeight = Math.log(weight) + elapsedDecay(System.currentTimeMillis());
+        while (true) {
+            AtomicLong cell = scores.computeIfAbsent(productId, id -> new AtomicLong(EMPTY));
+            long current = cell.get();
+            while (current != EVICTED) {
+                double sum = logSum(Double.longBitsToDouble(current), logWeight);
+                if (cell.compareAndSet(current, Double.doubleToRawLongBits(sum))) {
+                    return;
+                }
+                current = cell.get();
+            }
+            // Evicted between the lookup and the add; make sure it is gone and start over
+            scores.remove(productId, cell);
+        }
+    }
+
+    private double elapsedDecay(long nowMillis) {
+        return (nowMillis - epochMillis) * decayPerMilli;
+    }
+
+    // log(e^a + e^b) without leaving log space
+    private static double logSum(double a, double b) {
+        if (a == Double.NEGATIVE_INFINITY) {
+            return b;
+        }
+        return Math.max(a, b) + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+}
@@ -2,6 +2,7 @@
 package com.ecommerce.service.impl;
 
 import com.ecommerce.dto.UserDto;
+import com.ecommerce.dto.UserSummary;
 import com.ecommerce.entity.PasswordResetToken;
 import com.ecommerce.entity.User;
 import com.ecommerce.exception.ResourceNotFoundException;
@@ -9,19 +10,29 @@ import com.ecommerce.repository.PasswordResetTokenRepository;
 import com.ecommerce.repository.UserRepository;
 import com.ecommerce.security.UserDetailsImpl;
 import com.ecommerce.service.UserService;
+import com.ecommerce.util.TokenHashing;
+import com.ecommerce.util.TransactionCallbacks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
@@ -29,6 +40,25 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final ModelMapper modelMapper;
     
+    private static final String REQUEST_USERS_ATTRIBUTE = UserServiceImpl.class.getName() + ".users";
+    
+    @Value("${app.user-cache.ttl-ms:30000}")
+    private long userCacheTtlMs;
+    
+    @Value("${app.user-cache.max-size:10000}")
+    private int userCacheMaxSize;
+    
+    @Value("${app.password-reset.purge-batch-size:1000}")
+    private int resetTokenPurgeBatchSize;
+    
+    @Value("${app.password-reset.purge-max-batches:100}")
+    private int resetTokenPurgeMaxBatches;
+    
+    // Short-lived, cross-request copy of recently loaded users. Entries are immutable
+    // summaries rather than entities, so sharing them between threads is safe; writes go
+    // through saveUser/updateProfile, which evict.
+    private final Map<Long, CachedUser> userCache = new ConcurrentHashMap<>();
+    
     @Override
     public User createUser(String name, String email, String password, User.Role role) {
         User user = new User();
@@ -47,10 +77,46 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public User findById(Long id) {
+        // Callers may modify the entity, so it is loaded fresh and never shared
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
     
+    @Override
+    public UserSummary findSummaryById(Long id) {
+        Map<Long, UserSummary> requestUsers = getRequestUsers();
+        if (requestUsers != null && requestUsers.containsKey(id)) {
+            return requestUsers.get(id);
+        }
+        
+        UserSummary user = findCachedUser(id);
+        if (user == null) {
+            user = UserSummary.of(userRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id)));
+            cacheUser(user);
+        }
+        
+        if (requestUsers != null) {
+            requestUsers.put(id, user);
+        }
+        return user;
+    }
+    
+    @Override
+    public User getReferenceById(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+    
+    @Override
+    public void evictUser(Long id) {
+        userCache.remove(id);
+        
+        Map<Long, UserSummary> requestUsers = getRequestUsers();
+        if (requestUsers != null) {
+            requestUsers.remove(id);
+        }
+    }
+    
     @Override
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
@@ -59,7 +125,8 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public UserDto updateProfile(Long userId, UserDto userDto) {
-        User user = findById(userId);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         user.setName(userDto.getName());
         user.setAddress(userDto.getAddress());
@@ -70,6 +137,8 @@ public class UserServiceImpl implements UserService {
         user.setPhone(userDto.getPhone());
         
         User updatedUser = userRepository.save(user);
+        // Evicting before commit would let a concurrent read cache the old row again
+        TransactionCallbacks.afterCommit(() -> evictUser(userId));
         return modelMapper.map(updatedUser, UserDto.class);
     }
     
@@ -77,24 +146,27 @@ public class UserServiceImpl implements UserService {
     public UserDto getCurrentUserProfile() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        User user = findById(userDetails.getId());
+        UserSummary user = findSummaryById(userDetails.getId());
         return modelMapper.map(user, UserDto.class);
     }
     
     @Override
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        Long userId = savedUser.getId();
+        TransactionCallbacks.afterCommit(() -> evictUser(userId));
+        return savedUser;
     }
     
     @Override
     @Transactional
     public void createPasswordResetTokenForUser(User user, String token) {
-        // Remove existing tokens for the user
-        passwordResetTokenRepository.deleteByUser(user);
+        // Remove existing tokens for the user in one statement
+        passwordResetTokenRepository.deleteByUserId(user.getId());
         
-        // Create new token
+        // Create new token; only its hash is persisted
         PasswordResetToken resetToken = new PasswordResetToken();
-        resetToken.setToken(token);
+        resetToken.setTokenHash(TokenHashing.sha256Hex(token));
         resetToken.setUser(user);
         resetToken.setExpiryDate(LocalDateTime.now().plusHours(24)); // Token valid for 24 hours
         
@@ -103,15 +175,85 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public boolean validatePasswordResetToken(String token) {
-        return passwordResetTokenRepository.findByToken(token)
-                .map(resetToken -> !resetToken.isExpired())
+        return passwordResetTokenRepository.findExpiryDateByTokenHash(TokenHashing.sha256Hex(token))
+                .map(expiryDate -> LocalDateTime.now().isBefore(expiryDate))
                 .orElse(false);
     }
     
     @Override
     public User getUserByPasswordResetToken(String token) {
-        return passwordResetTokenRepository.findByToken(token)
-                .map(PasswordResetToken::getUser)
+        return passwordResetTokenRepository.findUserByTokenHash(TokenHashing.sha256Hex(token))
                 .orElseThrow(() -> new ResourceNotFoundException("Invalid password reset token"));
     }
+    
+    @Override
+    @Transactional
+    public void invalidatePasswordResetTokens(User user) {
+        passwordResetTokenRepository.deleteByUserId(user.getId());
+    }
+    
+    // Deletes expired tokens a bounded batch at a time, each batch in its own short
+    // transaction, so a large backlog never holds locks on the table for long
+    @Scheduled(cron = "${app.password-reset.purge-cron:0 0 * * * *}")
+    public void purgeExpiredPasswordResetTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        int total = 0;
+        
+        for (int batch = 0; batch < resetTokenPurgeMaxBatches; batch++) {
+            int deleted = passwordResetTokenRepository.deleteExpiredBatch(now, resetTokenPurgeBatchSize);
+            total += deleted;
+            if (deleted < resetTokenPurgeBatchSize) {
+                break;
+            }
+        }
+        
+        if (total > 0) {
+            log.info("Purged {} expired password reset tokens", total);
+        }
+    }
+    
+    private UserSummary findCachedUser(Long id) {
+        CachedUser cached = userCache.get(id);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            userCache.remove(id, cached);
+            return null;
+        }
+        return cached.user();
+    }
+    
+    private void cacheUser(UserSummary user) {
+        if (userCacheTtlMs <= 0) {
+            return;
+        }
+        if (userCache.size() >= userCacheMaxSize) {
+            long now = System.currentTimeMillis();
+            userCache.values().removeIf(cached -> cached.expiresAt() < now);
+            if (userCache.size() >= userCacheMaxSize) {
+                userCache.clear();
+            }
+        }
+        userCache.put(user.getId(), new CachedUser(user, System.currentTimeMillis() + userCacheTtlMs));
+    }
+    
+    // Per-request memo, so repeated lookups within one request never leave the service
+    @SuppressWarnings("unchecked")
+    private Map<Long, UserSummary> getRequestUsers() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        
+        Map<Long, UserSummary> users = (Map<Long, UserSummary>) attributes.getAttribute(REQUEST_USERS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (users == null) {
+            users = new HashMap<>();
+            attributes.setAttribute(REQUEST_USERS_ATTRIBUTE, users, RequestAttributes.SCOPE_REQUEST);
+        }
+        return users;
+    }
+    
+    private record CachedUser(UserSummary user, long expiresAt) {
+    }
 }
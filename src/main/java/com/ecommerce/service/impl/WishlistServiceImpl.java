@@ -2,23 +2,29 @@
 package com.ecommerce.service.impl;
 
 import com.ecommerce.dto.WishlistItemDto;
-import com.ecommerce.entity.Product;
-import com.ecommerce.entity.User;
 import com.ecommerce.entity.WishlistItem;
 import com.ecommerce.exception.ResourceNotFoundException;
-import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.repository.WishlistItemRepository;
 import com.ecommerce.security.UserDetailsImpl;
-import com.ecommerce.service.UserService;
+import com.ecommerce.service.TrendingService;
 import com.ecommerce.service.WishlistService;
+import com.ecommerce.util.SortedLongSet;
+import com.ecommerce.util.TransactionCallbacks;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,14 +32,32 @@ import java.util.stream.Collectors;
 public class WishlistServiceImpl implements WishlistService {
     
     private final WishlistItemRepository wishlistItemRepository;
-    private final ProductRepository productRepository;
-    private final UserService userService;
+    private final TrendingService trendingService;
     private final ModelMapper modelMapper;
     
+    @Value("${app.wishlist.membership-cache.ttl-ms:60000}")
+    private long membershipCacheTtlMs;
+    
+    @Value("${app.wishlist.membership-cache.max-size:20000}")
+    private int membershipCacheMaxSize;
+    
+    // Product ids in each user's wishlist, so product grids can mark hearts without a query
+    private final Map<Long, CachedMembership> membershipCache = new ConcurrentHashMap<>();
+    
+    // Last committed wishlist change per user, recorded inside the compute on that user's
+    // entry. A load only caches its snapshot if no change for the same user was committed
+    // since it started reading, so a slow load can't overwrite a newer patch with an older
+    // set. Changes older than the TTL can be forgotten: whatever a load that old stores has
+    // already expired.
+    private final Map<Long, MembershipChange> membershipChanges = new ConcurrentHashMap<>();
+    
+    // Orders loads against changes; only ever compared for the same user
+    private final AtomicLong membershipSequence = new AtomicLong();
+    
     @Override
     public List<WishlistItemDto> getWishlistItems() {
-        User currentUser = getCurrentUser();
-        List<WishlistItem> wishlistItems = wishlistItemRepository.findByUser(currentUser);
+        // Products come with the rows, so mapping doesn't fire a query per item
+        List<WishlistItem> wishlistItems = wishlistItemRepository.findByUserIdWithProduct(getCurrentUserId());
         
         return wishlistItems.stream()
                 .map(this::mapToWishlistItemDto)
@@ -43,36 +67,85 @@ public class WishlistServiceImpl implements WishlistService {
     @Override
     @Transactional
     public WishlistItemDto addToWishlist(Long productId) {
-        User currentUser = getCurrentUser();
-        Product product = getProduct(productId);
+        Long userId = getCurrentUserId();
         
-        // Check if the product already exists in the wishlist
-        if (wishlistItemRepository.existsByUserAndProductId(currentUser, productId)) {
-            return wishlistItemRepository.findByUserAndProductId(currentUser, productId)
-                    .map(this::mapToWishlistItemDto)
-                    .orElse(null);
+        // Insert unless already present, in one statement that concurrent clicks can't duplicate.
+        // Only a real insert counts toward trending, so re-adding an item does nothing.
+        if (wishlistItemRepository.insertIfAbsent(userId, productId) > 0) {
+            trendingService.recordWishlistAdd(productId);
+            TransactionCallbacks.afterCommit(() -> updateMembership(userId, set -> set.with(productId)));
         }
-        
-        // Create new wishlist item
-        WishlistItem wishlistItem = new WishlistItem();
-        wishlistItem.setUser(currentUser);
-        wishlistItem.setProduct(product);
-        
-        WishlistItem savedItem = wishlistItemRepository.save(wishlistItem);
-        return mapToWishlistItemDto(savedItem);
+        // Skipped and still missing means the product doesn't exist
+        return wishlistItemRepository.findByUserIdAndProductIdWithProduct(userId, productId)
+                .map(this::mapToWishlistItemDto)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
     }
     
     @Override
     @Transactional
     public void removeFromWishlist(Long productId) {
-        User currentUser = getCurrentUser();
-        wishlistItemRepository.deleteByUserAndProductId(currentUser, productId);
+        Long userId = getCurrentUserId();
+        if (wishlistItemRepository.deleteByUserIdAndProductId(userId, productId) > 0) {
+            TransactionCallbacks.afterCommit(() -> updateMembership(userId, set -> set.without(productId)));
+        }
     }
     
     @Override
     public boolean isProductInWishlist(Long productId) {
-        User currentUser = getCurrentUser();
-        return wishlistItemRepository.existsByUserAndProductId(currentUser, productId);
+        return getMembership(getCurrentUserId()).contains(productId);
+    }
+    
+    @Override
+    public Set<Long> findProductsInWishlist(List<Long> productIds) {
+        SortedLongSet membership = getMembership(getCurrentUserId());
+        
+        // Keeps the order of the request
+        Set<Long> inWishlist = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            if (membership.contains(productId)) {
+                inWishlist.add(productId);
+            }
+        }
+        return inWishlist;
+    }
+    
+    private SortedLongSet getMembership(Long userId) {
+        CachedMembership cached = membershipCache.get(userId);
+        long now = System.currentTimeMillis();
+        if (cached != null && cached.expiresAt() >= now) {
+            return cached.productIds();
+        }
+        
+        long loadStamp = membershipSequence.get();
+        List<Long> productIds = wishlistItemRepository.findProductIdsByUserId(userId);
+        SortedLongSet membership = SortedLongSet.of(productIds.stream().mapToLong(Long::longValue).toArray());
+        
+        if (membershipCacheTtlMs > 0) {
+            if (membershipCache.size() >= membershipCacheMaxSize) {
+                membershipCache.values().removeIf(entry -> entry.expiresAt() < now);
+                if (membershipCache.size() >= membershipCacheMaxSize) {
+                    membershipCache.clear();
+                }
+            }
+            CachedMembership loaded = new CachedMembership(membership, now + membershipCacheTtlMs);
+            membershipCache.compute(userId, (id, current) -> {
+                MembershipChange change = membershipChanges.get(id);
+                return change != null && change.sequence() > loadStamp ? current : loaded;
+            });
+        }
+        return membership;
+    }
+    
+    // Patches a cached set in place instead of dropping it, so the next grid still costs no query
+    private void updateMembership(Long userId, UnaryOperator<SortedLongSet> change) {
+        long now = System.currentTimeMillis();
+        if (membershipChanges.size() >= membershipCacheMaxSize) {
+            membershipChanges.values().removeIf(recorded -> recorded.at() + membershipCacheTtlMs < now);
+        }
+        membershipCache.compute(userId, (id, cached) -> {
+            membershipChanges.put(id, new MembershipChange(membershipSequence.incrementAndGet(), now));
+            return cached == null ? null : new CachedMembership(change.apply(cached.productIds()), cached.expiresAt());
+        });
     }
     
     private WishlistItemDto mapToWishlistItemDto(WishlistItem wishlistItem) {
@@ -88,14 +161,14 @@ public class WishlistServiceImpl implements WishlistService {
         return dto;
     }
     
-    private User getCurrentUser() {
+    private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
-        return userService.findById(userDetails.getId());
+        return ((UserDetailsImpl) authentication.getPrincipal()).getId();
     }
     
-    private Product getProduct(Long productId) {
-        return productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+    private record CachedMembership(SortedLongSet productIds, long expiresAt) {
+    }
+    
+    private record MembershipChange(long sequence, long at) {
     }
 }
@@ -0,0 +1,79 @@
+package com.ecommerce.util;
+
+import java.util.Arrays;
+
+// Immutable set of longs backed by a sorted array: 8 bytes per element, no boxing,
+// and lookups by binary search. Changes return a new set, so instances can be shared
+// between threads without locking. Meant for small sets such as one user's wishlist.
+public final class SortedLongSet {
+
+    private static final SortedLongSet EMPTY = new SortedLongSet(new long[0]);
+
+    private final long[] values;
+
+    private SortedLongSet(long[] values) {
+        this.values = values;
+    }
+
+    public static SortedLongSet empty() {
+        return EMPTY;
+    }
+
+    public static SortedLongSet of(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        // Drop duplicates in place
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == 0 ? EMPTY : new SortedLongSet(size == sorted.length ? sorted : Arrays.copyOf(sorted, size));
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, value) >= 0;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public SortedLongSet with(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return this;
+        }
+        int insertAt = -index - 1;
+        long[] grown = new long[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, insertAt);
+        grown[insertAt] = value;
+        System.arraycopy(values, insertAt, grown, insertAt + 1, values.length - insertAt);
+        return new SortedLongSet(grown);
+    }
+
+    public SortedLongSet withAll(long[] more) {
+        if (more.length == 0) {
+            return this;
+        }
+        long[] merged = Arrays.copyOf(values, values.length + more.length);
+        System.arraycopy(more, 0, merged, values.length, more.length);
+        return of(merged);
+    }
+
+    public SortedLongSet without(long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return this;
+        }
+        if (values.length == 1) {
+            return EMPTY;
+        }
+        long[] shrunk = new long[values.length - 1];
+        System.arraycopy(values, 0, shrunk, 0, index);
+        System.arraycopy(values, index + 1, shrunk, index, values.length - index - 1);
+        return new SortedLongSet(shrunk);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RateLimitFilter();
+        ReflectionTestUtils.setField(filter, "rateLimiter", new TokenBucketRateLimiter());
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "authCapacity", 1L);
+        ReflectionTestUtils.setField(filter, "authRefillPerMinute", 1L);
+        ReflectionTestUtils.setField(filter, "searchCapacity", 1L);
+        ReflectionTestUtils.setField(filter, "searchRefillPerMinute", 1L);
+        ReflectionTestUtils.setField(filter, "defaultCapacity", 1L);
+        ReflectionTestUtils.setField(filter, "defaultRefillPerMinute", 1L);
+        filter.init();
+    }
+
+    @Test
+    void rejectsAnonymousCallersOverTheDefaultLimit() throws Exception {
+        assertThat(send("GET", "/products/1").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = send("GET", "/products/2");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isNotNull();
+    }
+
+    @Test
+    void authEndpointsHaveTheirOwnBucket() throws Exception {
+        assertThat(send("GET", "/products/1").getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/auth/login").getStatus()).isEqualTo(200);
+        assertThat(send("POST", "/auth/login").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void paymentWebhookIsNotRateLimited() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertThat(send("POST", "/payment/webhook").getStatus()).isEqualTo(200);
+        }
+        assertThat(send("GET", "/products/1").getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse send(String method, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api" + path);
+        request.setContextPath("/api");
+        request.setRemoteAddr("203.0.113.7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    // One token a minute: nothing measurable refills while a test runs
+    private static final TokenBucketRateLimiter.Policy POLICY =
+            TokenBucketRateLimiter.Policy.perMinute("test", 100, 1);
+
+    @Test
+    void grantsCapacityThenReportsWhenTheNextTokenArrives() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire("user:1", POLICY)).isZero();
+        }
+        long retryAfterMs = limiter.tryAcquire("user:1", POLICY);
+
+        assertThat(retryAfterMs).isBetween(1L, 60_000L);
+        assertThat(limiter.tryAcquire("user:2", POLICY)).isZero();
+    }
+
+    @Test
+    void concurrentCallersNeverGetMoreThanTheCapacity() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        try {
+            List<Future<?>> callers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                callers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 50; i++) {
+                        if (limiter.tryAcquire("ip:10.0.0.1", POLICY) == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> caller : callers) {
+                caller.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(granted.get()).isEqualTo(100);
+        assertThat(limiter.getTrackedBucketCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsIdleBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter();
+        ReflectionTestUtils.setField(limiter, "idleEvictionMs", -1L);
+        limiter.tryAcquire("user:1", POLICY);
+
+        limiter.evictIdleBuckets();
+
+        assertThat(limiter.getTrackedBucketCount()).isZero();
+    }
+}
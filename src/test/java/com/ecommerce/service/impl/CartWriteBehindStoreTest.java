@@ -0,0 +1,179 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartWriteBehindStoreTest {
+
+    private static final Long USER_ID = 7L;
+
+    private CartItemRepository cartItemRepository;
+    private ProductRepository productRepository;
+    private CartWriteBehindStore store;
+
+    @BeforeEach
+    void setUp() {
+        cartItemRepository = mock(CartItemRepository.class);
+        productRepository = mock(ProductRepository.class);
+        UserService userService = mock(UserService.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userService.getReferenceById(anyLong())).thenAnswer(invocation -> user(invocation.getArgument(0)));
+        when(productRepository.getReferenceById(anyLong())).thenAnswer(invocation -> product(invocation.getArgument(0)));
+        when(productRepository.findExistingIdsIn(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<Long>(invocation.<Collection<Long>>getArgument(0)));
+
+        store = new CartWriteBehindStore(cartItemRepository, productRepository, userService,
+                transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "batchSize", 200);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void flushWritesBufferedLines() {
+        store.add(USER_ID, 1L, 2, "M");
+        store.add(USER_ID, 1L, 1, null);
+        store.add(USER_ID, 2L, 1, null);
+
+        store.flushDirtyCarts();
+
+        assertThat(quantitiesOf(lastSaved())).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 3, 2L, 1));
+    }
+
+    @Test
+    void productDeletedWhileBufferedIsDroppedInsteadOfFailingEveryFlush() {
+        store.add(USER_ID, 1L, 1, null);
+        store.add(USER_ID, 2L, 1, null);
+        when(productRepository.findExistingIdsIn(anyCollection())).thenReturn(List.of(1L));
+
+        store.flushDirtyCarts();
+
+        assertThat(quantitiesOf(lastSaved())).containsOnlyKeys(1L);
+        assertThat(store.getLines(USER_ID)).extracting(CartWriteBehindStore.CartLine::productId).containsExactly(1L);
+    }
+
+    @Test
+    void checkoutStillWorksAfterAProductInTheCartWasDeleted() {
+        store.add(USER_ID, 1L, 1, null);
+        store.add(USER_ID, 2L, 1, null);
+        when(productRepository.findExistingIdsIn(anyCollection())).thenReturn(List.of(2L));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThatCode(() -> store.flushForCheckout(USER_ID)).doesNotThrowAnyException();
+
+        assertThat(quantitiesOf(lastSaved())).containsOnlyKeys(2L);
+    }
+
+    @Test
+    void concurrentChangesDuringFlushesAreNeverLost() throws Exception {
+        int threads = 8;
+        int addsPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean adding = new AtomicBoolean(true);
+        try {
+            Future<?> flusher = pool.submit(() -> {
+                start.await();
+                while (adding.get()) {
+                    store.flushDirtyCarts();
+                }
+                return null;
+            });
+
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long productId = t % 4;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < addsPerThread; i++) {
+                        store.add(USER_ID, productId, 1, null);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            adding.set(false);
+            flusher.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+        store.flushDirtyCarts();
+
+        int expected = threads / 4 * addsPerThread;
+        Map<Long, Integer> expectedQuantities = Map.of(0L, expected, 1L, expected, 2L, expected, 3L, expected);
+        assertThat(store.getLines(USER_ID).stream().collect(Collectors.toMap(
+                CartWriteBehindStore.CartLine::productId, CartWriteBehindStore.CartLine::quantity)))
+                .isEqualTo(expectedQuantities);
+        // The mocked table never keeps anything, so the last flush rewrites the whole cart
+        assertThat(quantitiesOf(lastSaved())).isEqualTo(expectedQuantities);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<CartItem> lastSaved() {
+        ArgumentCaptor<List<CartItem>> saved = ArgumentCaptor.forClass(List.class);
+        verify(cartItemRepository, atLeastOnce()).saveAll(saved.capture());
+        return saved.getValue();
+    }
+
+    private static Map<Long, Integer> quantitiesOf(List<CartItem> items) {
+        return items.stream().collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity));
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.CartItemDto;
+import com.ecommerce.dto.WishlistItemDto;
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.entity.WishlistItem;
+import com.ecommerce.security.UserDetailsImpl;
+import com.ecommerce.service.TrendingService;
+import com.ecommerce.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// GET /cart and GET /wishlist must load every line together with its product in one
+// statement, however many lines there are
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@Import({CartServiceImpl.class, WishlistServiceImpl.class})
+class LineItemQueryCountTest {
+
+    private static final int LINES = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CartServiceImpl cartService;
+
+    @Autowired
+    private WishlistServiceImpl wishlistService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private TrendingService trendingService;
+
+    @MockBean
+    private CartWriteBehindStore cartStore;
+
+    @MockBean
+    private ProductPriceCache priceCache;
+
+    @MockBean
+    private ModelMapper modelMapper;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User seller = persistUser("seller@example.com", User.Role.SELLER);
+        User buyer = persistUser("buyer@example.com", User.Role.BUYER);
+        for (int i = 0; i < LINES; i++) {
+            Product product = persistProduct(seller, "Product " + i);
+
+            CartItem cartItem = new CartItem();
+            cartItem.setUser(buyer);
+            cartItem.setProduct(product);
+            cartItem.setQuantity(i + 1);
+            entityManager.persist(cartItem);
+
+            WishlistItem wishlistItem = new WishlistItem();
+            wishlistItem.setUser(buyer);
+            wishlistItem.setProduct(product);
+            entityManager.persist(wishlistItem);
+        }
+        entityManager.flush();
+        // Nothing may come from the persistence context; every product has to be loaded
+        entityManager.clear();
+
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(buyer.getId()).role("BUYER").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cartLoadsInOneStatement() {
+        List<CartItemDto> items = cartService.getCartItems();
+
+        assertThat(items).hasSize(LINES);
+        assertThat(items).extracting(CartItemDto::getName).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void wishlistLoadsInOneStatement() {
+        List<WishlistItemDto> items = wishlistService.getWishlistItems();
+
+        assertThat(items).hasSize(LINES);
+        assertThat(items).extracting(WishlistItemDto::getName).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private User persistUser(String email, User.Role role) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPassword("not-a-real-hash");
+        user.setRole(role);
+        return entityManager.persist(user);
+    }
+
+    private Product persistProduct(User seller, String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(new BigDecimal("19.99"));
+        product.setStock(10);
+        product.setUser(seller);
+        return entityManager.persist(product);
+    }
+}
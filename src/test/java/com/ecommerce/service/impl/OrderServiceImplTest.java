@@ -0,0 +1,178 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.OrderDto;
+import com.ecommerce.dto.OrderRequest;
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.security.UserDetailsImpl;
+import com.ecommerce.service.EmailService;
+import com.ecommerce.service.TrendingService;
+import com.ecommerce.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.modelmapper.ModelMapper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceImplTest {
+
+    private static final Long USER_ID = 11L;
+
+    private CartItemRepository cartItemRepository;
+    private ProductRepository productRepository;
+    private OrderRepository orderRepository;
+    private OrderItemRepository orderItemRepository;
+    private PlatformTransactionManager transactionManager;
+    private CartWriteBehindStore cartStore;
+    private OrderServiceImpl orderService;
+
+    // What a reader outside the flush transaction can see, and what that flush has written
+    // but not yet committed
+    private final List<CartItem> committedRows = new ArrayList<>();
+    private final List<CartItem> uncommittedRows = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cartItemRepository = mock(CartItemRepository.class);
+        productRepository = mock(ProductRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        orderItemRepository = mock(OrderItemRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        UserService userService = mock(UserService.class);
+        ModelMapper modelMapper = mock(ModelMapper.class);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doAnswer(invocation -> {
+            committedRows.addAll(uncommittedRows);
+            uncommittedRows.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+        when(userService.getReferenceById(anyLong())).thenAnswer(invocation -> user(invocation.getArgument(0)));
+        when(productRepository.getReferenceById(anyLong())).thenAnswer(invocation -> product(invocation.getArgument(0)));
+        when(productRepository.findExistingIdsIn(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<Long>(invocation.<Collection<Long>>getArgument(0)));
+        when(cartItemRepository.saveAll(any())).thenAnswer(invocation -> {
+            List<CartItem> rows = new ArrayList<>((Collection<CartItem>) invocation.getArgument(0));
+            uncommittedRows.addAll(rows);
+            return rows;
+        });
+        when(cartItemRepository.findByUserIdWithProduct(USER_ID)).thenAnswer(invocation -> List.copyOf(committedRows));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(modelMapper.map(any(), eq(OrderDto.class))).thenReturn(new OrderDto());
+
+        cartStore = new CartWriteBehindStore(cartItemRepository, productRepository, userService,
+                transactionManager, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cartStore, "enabled", true);
+
+        ProductPriceCache priceCache = new ProductPriceCache(productRepository);
+        ReflectionTestUtils.setField(priceCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(priceCache, "maxSize", 100);
+
+        orderService = new OrderServiceImpl(orderRepository, orderItemRepository, cartItemRepository, userService,
+                mock(EmailService.class), mock(TrendingService.class), modelMapper, cartStore, priceCache,
+                mock(OrderStatusNotifier.class));
+
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(USER_ID).role("BUYER").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void checkoutOrdersLinesThatWereOnlyBuffered() {
+        cartStore.add(USER_ID, 1L, 2, null);
+        cartStore.add(USER_ID, 2L, 1, "L");
+        // Stands in for the order transaction createOrder runs in
+        TransactionSynchronizationManager.initSynchronization();
+
+        orderService.createOrder(orderRequest());
+
+        ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+        verify(orderRepository).save(order.capture());
+        assertThat(order.getValue().getTotalAmount()).isEqualByComparingTo("30.00");
+        verify(orderItemRepository, times(2)).save(any());
+    }
+
+    @Test
+    void checkoutFlushDoesAllItsReadsInsideItsOwnTransaction() {
+        cartStore.add(USER_ID, 1L, 1, null);
+        TransactionSynchronizationManager.initSynchronization();
+
+        orderService.createOrder(orderRequest());
+
+        // Nothing may be read on the order's connection before the flush has committed, or
+        // under REPEATABLE READ the order would not see the flushed lines
+        InOrder inOrder = inOrder(transactionManager, productRepository, cartItemRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(productRepository).findExistingIdsIn(anyCollection());
+        inOrder.verify(cartItemRepository).saveAll(any());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(cartItemRepository).findByUserIdWithProduct(USER_ID);
+    }
+
+    private static OrderRequest orderRequest() {
+        OrderRequest request = new OrderRequest();
+        request.setFullName("Test Buyer");
+        request.setEmail("buyer@example.com");
+        request.setAddress("1 Main St");
+        request.setCity("Springfield");
+        request.setState("IL");
+        request.setZipCode("62701");
+        request.setCountry("US");
+        request.setPhone("5550100");
+        return request;
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("10.00"));
+        return product;
+    }
+}
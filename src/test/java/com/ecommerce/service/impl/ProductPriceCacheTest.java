@@ -0,0 +1,62 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductPriceCacheTest {
+
+    private static final Long PRODUCT_ID = 4L;
+
+    private ProductRepository productRepository;
+    private ProductPriceCache priceCache;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductRepository.class);
+        priceCache = new ProductPriceCache(productRepository);
+        ReflectionTestUtils.setField(priceCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(priceCache, "maxSize", 100);
+    }
+
+    @Test
+    void servesLoadedSnapshotsFromMemory() {
+        when(productRepository.findAllById(List.of(PRODUCT_ID))).thenReturn(List.of(product("10.00")));
+
+        priceCache.getSnapshots(List.of(PRODUCT_ID));
+        priceCache.getSnapshots(List.of(PRODUCT_ID));
+
+        verify(productRepository, times(1)).findAllById(List.of(PRODUCT_ID));
+    }
+
+    @Test
+    void rowReadBeforeAPriceChangeIsNotCachedAfterTheEviction() {
+        long loadStamp = priceCache.loadStamp();
+        // The price change commits, and evicts, while that load is still in flight
+        priceCache.invalidate(PRODUCT_ID);
+
+        ProductPriceCache.PriceSnapshot stale = priceCache.refresh(product("10.00"), loadStamp);
+        when(productRepository.findAllById(List.of(PRODUCT_ID))).thenReturn(List.of(product("8.00")));
+
+        assertThat(stale.price()).isEqualByComparingTo("10.00");
+        assertThat(priceCache.getSnapshots(List.of(PRODUCT_ID)).get(PRODUCT_ID).price()).isEqualByComparingTo("8.00");
+    }
+
+    private static Product product(String price) {
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+}
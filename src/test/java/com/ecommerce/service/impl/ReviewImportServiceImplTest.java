@@ -0,0 +1,118 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ReviewImportResultDto;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ReviewRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.security.UserDetailsImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewImportServiceImplTest {
+
+    private static final Long SELLER_ID = 1L;
+    private static final Long PRODUCT_ID = 10L;
+    private static final Long ALICE = 2L;
+    private static final Long BOB = 3L;
+    private static final Long CAROL = 4L;
+
+    private ProductRepository productRepository;
+    private JdbcTemplate jdbcTemplate;
+    private ReviewImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        ReviewRepository reviewRepository = mock(ReviewRepository.class);
+        productRepository = mock(ProductRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(productRepository.findSellerIdsByIdIn(anyCollection()))
+                .thenReturn(List.<Object[]>of(new Object[]{PRODUCT_ID, SELLER_ID}));
+        when(userRepository.findIdsByEmailIn(anyCollection())).thenReturn(List.of(
+                new Object[]{"alice@example.com", ALICE},
+                new Object[]{"bob@example.com", BOB},
+                new Object[]{"carol@example.com", CAROL}));
+        // Carol never bought the product
+        when(orderItemRepository.findPurchasedPairs(anyCollection(), anyCollection())).thenReturn(List.of(
+                new Object[]{ALICE, PRODUCT_ID},
+                new Object[]{BOB, PRODUCT_ID}));
+
+        importService = new ReviewImportServiceImpl(reviewRepository, productRepository, userRepository,
+                orderItemRepository, jdbcTemplate, new ObjectMapper().registerModule(new JavaTimeModule()),
+                transactionManager);
+        ReflectionTestUtils.setField(importService, "batchSize", 500);
+
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(SELLER_ID).role("SELLER").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rowThatBreaksItsChunkIsTheOnlyOneNotImported() throws Exception {
+        // Alice reviewed the product herself after the chunk was checked
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DuplicateKeyException("Duplicate entry"));
+        when(jdbcTemplate.update(anyString(), eq(ALICE), any(), any(), any(), any()))
+                .thenThrow(new DuplicateKeyException("Duplicate entry"));
+
+        ReviewImportResultDto result = importService.importReviews(ndjson(
+                "{\"productId\":10,\"userEmail\":\"alice@example.com\",\"rating\":5}",
+                "{\"productId\":10,\"userEmail\":\"bob@example.com\",\"rating\":4,\"comment\":\"Good\"}"));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getDuplicates()).isEqualTo(1);
+        assertThat(result.getFailed()).isZero();
+        verify(productRepository).rebuildRatingHistogramsFor(List.of(PRODUCT_ID));
+    }
+
+    @Test
+    void reviewsCanOnlyBeAttributedToCustomersWhoBoughtTheProduct() throws Exception {
+        ReviewImportResultDto result = importService.importReviews(ndjson(
+                "{\"productId\":10,\"userEmail\":\"bob@example.com\",\"rating\":4}",
+                "{\"productId\":10,\"userEmail\":\"carol@example.com\",\"rating\":1}"));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(2);
+            assertThat(error.getMessage()).contains("has not bought");
+        });
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ReviewRequest;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.Review;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.ReviewRepository;
+import com.ecommerce.security.UserDetailsImpl;
+import com.ecommerce.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReviewServiceImplTest {
+
+    private static final Long USER_ID = 4L;
+    private static final Long PRODUCT_ID = 5L;
+
+    private ReviewRepository reviewRepository;
+    private ReviewServiceImpl reviewService;
+
+    @BeforeEach
+    void setUp() {
+        reviewRepository = mock(ReviewRepository.class);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        UserService userService = mock(UserService.class);
+
+        User user = new User();
+        user.setId(USER_ID);
+        user.setName("Reviewer");
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        when(userService.getReferenceById(USER_ID)).thenReturn(user);
+        when(productRepository.findById(PRODUCT_ID)).thenReturn(Optional.of(product));
+        when(reviewRepository.findByUserIdAndProductIdForUpdate(USER_ID, PRODUCT_ID)).thenReturn(Optional.empty());
+        when(reviewRepository.save(any(Review.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        reviewService = new ReviewServiceImpl(reviewRepository, productRepository, userService);
+        ReflectionTestUtils.setField(reviewService, "checkCacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(reviewService, "checkCacheMaxSize", 100);
+        signIn();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void onlyUncheckedProductsGoToTheDatabase() {
+        when(reviewRepository.findReviewedProductIds(eq(USER_ID), anyCollection())).thenReturn(List.of(2L));
+
+        assertThat(reviewService.findReviewedProducts(List.of(1L, 2L))).containsExactly(2L);
+        assertThat(reviewService.findReviewedProducts(List.of(2L, 1L))).containsExactly(2L);
+
+        verify(reviewRepository, times(1)).findReviewedProductIds(eq(USER_ID), anyCollection());
+    }
+
+    @Test
+    void newReviewPatchesTheCachedAnswer() {
+        when(reviewRepository.findReviewedProductIds(eq(USER_ID), anyCollection())).thenReturn(List.of());
+        assertThat(reviewService.findReviewedProducts(List.of(PRODUCT_ID))).isEmpty();
+
+        reviewService.addReview(new ReviewRequest(PRODUCT_ID, 4, "Good"));
+
+        assertThat(reviewService.findReviewedProducts(List.of(PRODUCT_ID))).containsExactly(PRODUCT_ID);
+        verify(reviewRepository, times(1)).findReviewedProductIds(eq(USER_ID), anyCollection());
+    }
+
+    @Test
+    void lookupThatStartedBeforeACommittedReviewIsNotCached() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        when(reviewRepository.findReviewedProductIds(eq(USER_ID), anyCollection())).thenAnswer(invocation -> {
+            if (lookups.getAndIncrement() == 0) {
+                // Answer read before the review below commits
+                reading.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return List.of();
+            }
+            return List.copyOf(invocation.<Collection<Long>>getArgument(1));
+        });
+
+        CompletableFuture<Set<Long>> slowLookup = CompletableFuture.supplyAsync(() -> {
+            signIn();
+            return reviewService.findReviewedProducts(List.of(PRODUCT_ID));
+        });
+        assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+        reviewService.addReview(new ReviewRequest(PRODUCT_ID, 5, null));
+        release.countDown();
+
+        assertThat(slowLookup.get(10, TimeUnit.SECONDS)).isEmpty();
+        assertThat(reviewService.findReviewedProducts(List.of(PRODUCT_ID))).containsExactly(PRODUCT_ID);
+    }
+
+    private static void signIn() {
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(USER_ID).role("BUYER").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.ecommerce.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TrendingServiceImplTest {
+
+    private TrendingServiceImpl trending;
+
+    @BeforeEach
+    void setUp() {
+        trending = newService(1_000_000L, 0.01);
+    }
+
+    @Test
+    void ranksProductsByWeightedEvents() {
+        trending.recordView(1L);
+        trending.recordOrder(2L, 1);
+        trending.recordCartAdd(3L, 1);
+        trending.recordWishlistAdd(4L);
+
+        assertThat(trending.getTrendingProductIds(3)).containsExactly(2L, 3L, 4L);
+        assertThat(trending.getScore(1L)).isCloseTo(1.0, within(1e-6));
+        assertThat(trending.getScore(5L)).isZero();
+    }
+
+    @Test
+    void sweepKeepsScoresAndEvictsDecayedProducts() {
+        TrendingServiceImpl service = newService(1_000_000L, 2.0);
+        service.recordView(1L);
+        service.recordOrder(2L, 1);
+
+        service.evictDecayed();
+
+        assertThat(service.getTrackedProductCount()).isEqualTo(1);
+        assertThat(service.getScore(1L)).isZero();
+        assertThat(service.getScore(2L)).isCloseTo(5.0, within(1e-6));
+
+        // An evicted product starts over from its next event
+        service.recordView(1L);
+        assertThat(service.getScore(1L)).isCloseTo(1.0, within(1e-6));
+    }
+
+    @Test
+    void concurrentSweepsLoseAndDoubleCountNothing() throws Exception {
+        int threads = 8;
+        int eventsPerThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean recording = new AtomicBoolean(true);
+        try {
+            // Sweep as often as possible while events arrive
+            TrendingServiceImpl service = newService(1_000_000L, 0.01);
+            Future<?> sweeper = pool.submit(() -> {
+                start.await();
+                while (recording.get()) {
+                    service.evictDecayed();
+                }
+                return null;
+            });
+
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long productId = t % 2;
+                writers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < eventsPerThread; i++) {
+                        service.recordView(productId);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            recording.set(false);
+            sweeper.get(30, TimeUnit.SECONDS);
+
+            // With a half-life of ~2 years the decay over the test is negligible
+            double expectedPerProduct = threads / 2.0 * eventsPerThread;
+            assertThat(service.getScore(0L)).isCloseTo(expectedPerProduct, within(expectedPerProduct * 1e-6));
+            assertThat(service.getScore(1L)).isCloseTo(expectedPerProduct, within(expectedPerProduct * 1e-6));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static TrendingServiceImpl newService(long halfLifeMinutes, double minScore) {
+        TrendingServiceImpl service = new TrendingServiceImpl();
+        ReflectionTestUtils.setField(service, "halfLifeMinutes", halfLifeMinutes);
+        ReflectionTestUtils.setField(service, "viewWeight", 1.0);
+        ReflectionTestUtils.setField(service, "cartWeight", 3.0);
+        ReflectionTestUtils.setField(service, "wishlistWeight", 2.0);
+        ReflectionTestUtils.setField(service, "orderWeight", 5.0);
+        ReflectionTestUtils.setField(service, "minScore", minScore);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,124 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.repository.WishlistItemRepository;
+import com.ecommerce.security.UserDetailsImpl;
+import com.ecommerce.service.TrendingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WishlistServiceImplTest {
+
+    private static final Long USER_ID = 3L;
+    private static final Long OTHER_USER_ID = 4L;
+
+    private WishlistItemRepository wishlistItemRepository;
+    private WishlistServiceImpl wishlistService;
+
+    @BeforeEach
+    void setUp() {
+        wishlistItemRepository = mock(WishlistItemRepository.class);
+        wishlistService = new WishlistServiceImpl(wishlistItemRepository, mock(TrendingService.class), new ModelMapper());
+        ReflectionTestUtils.setField(wishlistService, "membershipCacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(wishlistService, "membershipCacheMaxSize", 100);
+        signIn();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void answersFromTheCachedSetAndPatchesItOnRemove() {
+        when(wishlistItemRepository.findProductIdsByUserId(USER_ID)).thenReturn(List.of(5L, 9L));
+        when(wishlistItemRepository.deleteByUserIdAndProductId(USER_ID, 5L)).thenReturn(1);
+
+        assertThat(wishlistService.findProductsInWishlist(List.of(9L, 1L, 5L))).containsExactly(9L, 5L);
+        wishlistService.removeFromWishlist(5L);
+
+        assertThat(wishlistService.isProductInWishlist(5L)).isFalse();
+        assertThat(wishlistService.isProductInWishlist(9L)).isTrue();
+        verify(wishlistItemRepository, times(1)).findProductIdsByUserId(USER_ID);
+    }
+
+    @Test
+    void loadThatStartedBeforeACommittedChangeIsNotCached() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(wishlistItemRepository.findProductIdsByUserId(USER_ID)).thenAnswer(invocation -> {
+            if (loads.getAndIncrement() == 0) {
+                // Snapshot taken before the delete below commits
+                reading.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return List.of(5L);
+            }
+            return List.of();
+        });
+        when(wishlistItemRepository.deleteByUserIdAndProductId(USER_ID, 5L)).thenReturn(1);
+
+        CompletableFuture<Boolean> slowLoad = CompletableFuture.supplyAsync(() -> {
+            signIn();
+            return wishlistService.isProductInWishlist(5L);
+        });
+        assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+        wishlistService.removeFromWishlist(5L);
+        release.countDown();
+
+        assertThat(slowLoad.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(wishlistService.isProductInWishlist(5L)).isFalse();
+    }
+
+    @Test
+    void anotherUsersChangeDoesNotStopALoadBeingCached() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(wishlistItemRepository.findProductIdsByUserId(USER_ID)).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(5L);
+        });
+        when(wishlistItemRepository.deleteByUserIdAndProductId(OTHER_USER_ID, 5L)).thenReturn(1);
+
+        CompletableFuture<Boolean> load = CompletableFuture.supplyAsync(() -> {
+            signIn();
+            return wishlistService.isProductInWishlist(5L);
+        });
+        assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+        signIn(OTHER_USER_ID);
+        wishlistService.removeFromWishlist(5L);
+        release.countDown();
+        assertThat(load.get(10, TimeUnit.SECONDS)).isTrue();
+
+        signIn();
+        assertThat(wishlistService.isProductInWishlist(5L)).isTrue();
+        verify(wishlistItemRepository, times(1)).findProductIdsByUserId(USER_ID);
+    }
+
+    private static void signIn() {
+        signIn(USER_ID);
+    }
+
+    private static void signIn(Long userId) {
+        UserDetailsImpl principal = UserDetailsImpl.builder().id(userId).role("BUYER").build();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+}